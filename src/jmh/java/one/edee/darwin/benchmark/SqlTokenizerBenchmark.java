@@ -0,0 +1,91 @@
+package one.edee.darwin.benchmark;
+
+import one.edee.darwin.resources.DefaultResourceAccessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput of SQL script tokenization through the public {@link DefaultResourceAccessor} API - both
+ * the script read and tokenized as a whole and the script streamed statement by statement. Scripts are copied
+ * to a temporary folder so that they're read the same way as patches in the file system.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlTokenizerBenchmark {
+	private static final String SMALL_SCRIPT = "create table DARWIN (id integer not null, component varchar(255) not null);\n" +
+			"insert into DARWIN (id, component) values (1, 'darwin');\n" +
+			"update DARWIN set component = 'darwin;;' where id = 1;";
+	private static final String FIXTURE_FOLDER = "META-INF/darwin/sql-test/upgrade/mysql/";
+
+	@Param({"small", "commented", "escaped", "verylarge"})
+	public String script;
+	private Path folder;
+	private String resourcePath;
+	private DefaultResourceAccessor accessor;
+
+	@Setup
+	public void setUp() throws IOException {
+		folder = Files.createTempDirectory("darwin-benchmark");
+		final String content;
+		switch (script) {
+			case "small": content = SMALL_SCRIPT; break;
+			case "commented": content = read("commented.sql"); break;
+			case "escaped": content = read("escaped-with-single-quote.sql"); break;
+			case "verylarge": content = read("verylarge.sql"); break;
+			default: throw new IllegalArgumentException("Unknown script " + script);
+		}
+		resourcePath = script + ".sql";
+		Files.write(folder.resolve(resourcePath), content.getBytes(StandardCharsets.UTF_8));
+		accessor = new DefaultResourceAccessor(new DefaultResourceLoader(), "UTF-8", folder.toUri().toString());
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileSystemUtils.deleteRecursively(folder);
+	}
+
+	@Benchmark
+	public List<String> tokenize() {
+		return accessor.getTokenizedSQLScriptContentFromResource(resourcePath);
+	}
+
+	@Benchmark
+	public int stream() {
+		final int[] count = new int[1];
+		accessor.processTokenizedSQLScriptContentFromResource(resourcePath, statement -> count[0]++);
+		return count[0];
+	}
+
+	private static String read(String fileName) throws IOException {
+		try (final InputStream is = new ClassPathResource(FIXTURE_FOLDER + fileName).getInputStream()) {
+			return StreamUtils.copyToString(is, StandardCharsets.UTF_8);
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package one.edee.darwin.benchmark;
+
+import one.edee.darwin.model.version.VersionComparator;
+import one.edee.darwin.model.version.VersionDescriptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing, comparison and sorting of {@link VersionDescriptor versions} as they're done when patches
+ * are sorted and evaluated. Run with `-prof gc` to see allocation rate of the comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VersionComparatorBenchmark {
+	private static final String[] VERSIONS = {
+			"1.0", "1.0.1", "1.0.11", "1.1-alpha-1", "1.1-alpha-20", "1.1-beta", "1.1", "1.2.2-RELEASE",
+			"1.8.9.1-alpha", "1.8-RC1", "2.0.0-SNAPSHOT", "2.0", "2.0.1", "10.0", "10.0.0.1", "e.a.b"
+	};
+	private final VersionComparator comparator = new VersionComparator();
+	private VersionDescriptor[] descriptors;
+
+	@Setup
+	public void setUp() {
+		descriptors = new VersionDescriptor[VERSIONS.length];
+		for (int i = 0; i < VERSIONS.length; i++) {
+			descriptors[i] = new VersionDescriptor(VERSIONS[i]);
+		}
+	}
+
+	@Benchmark
+	public VersionDescriptor parse() {
+		VersionDescriptor last = null;
+		for (String version : VERSIONS) {
+			last = new VersionDescriptor(version);
+		}
+		return last;
+	}
+
+	@Benchmark
+	public int compareAll() {
+		int result = 0;
+		for (VersionDescriptor a : descriptors) {
+			for (VersionDescriptor b : descriptors) {
+				result += comparator.compare(a, b);
+			}
+		}
+		return result;
+	}
+
+	@Benchmark
+	public VersionDescriptor[] sort() {
+		final VersionDescriptor[] copy = descriptors.clone();
+		Arrays.sort(copy, comparator);
+		return copy;
+	}
+
+}
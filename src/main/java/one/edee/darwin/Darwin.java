@@ -7,6 +7,8 @@ import lombok.extern.apachecommons.CommonsLog;
 import one.edee.darwin.exception.ProcessIsLockedException;
 import one.edee.darwin.locker.Locker;
 import one.edee.darwin.model.Patch;
+import one.edee.darwin.model.PatchLedger;
+import one.edee.darwin.model.PreparedPatch;
 import one.edee.darwin.model.Platform;
 import one.edee.darwin.model.SchemaVersion;
 import one.edee.darwin.model.SchemaVersionProvider;
@@ -21,17 +23,28 @@ import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.core.io.Resource;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
 
 import javax.sql.DataSource;
-import java.sql.Connection;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 /**
  * Darwin allows you to automatically update your database layer structure. It tracks version of the data model
@@ -55,7 +68,7 @@ import java.time.LocalDateTime;
 @CommonsLog
 public class Darwin implements InitializingBean, ApplicationContextAware {
 	public static final String DARWIN_COMPONENT_NAME = "darwin";
-	public static final String DARWIN_COMPONENT_VERSION = "1.0";
+	public static final String DARWIN_COMPONENT_VERSION = "3.3";
 
 	@Getter @Setter private String dataSourceName = "dataSource";
 	@Getter @Setter private String transactionManagerName = "transactionManager";
@@ -63,6 +76,23 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
 	@Getter @Setter private SchemaVersionProvider modelVersion;
 	@Getter @Setter private boolean skipIfDataSourceNotPresent;
 	@Getter @Setter private boolean switchOff;
+	@Getter @Setter private boolean fingerprintCheck = true;
+	@Getter @Setter private boolean binarySearchGuess;
+	@Getter @Setter private CheckpointPolicy checkpointPolicy = CheckpointPolicy.PER_STATEMENT;
+	@Getter @Setter private Map<String, CheckpointPolicy> patchCheckpointPolicies = new HashMap<>();
+	@Getter @Setter private int dmlBatchSize = 1;
+	@Getter @Setter private int pipelineSize = 1;
+	@Getter @Setter private int patchPrefetchQueueSize;
+	/**
+	 * Maximal time the node waits for the lease of the component held by another node.
+	 */
+	@Getter @Setter private int lockTimeoutInSeconds = 100;
+	/**
+	 * Interval between the attempts to lease the component held by another node.
+	 */
+	@Getter @Setter private long lockPollIntervalInMillis = 5000L;
+	@Getter @Setter private Set<String> dependsOn = new LinkedHashSet<>();
+	@Getter @Setter private boolean orchestrated;
 	@Getter @Setter private Locker locker;
 	@Getter @Setter private ResourceMatcher resourceMatcher = new DefaultResourceMatcher();
 	@Getter @Setter private ResourcePatchMediator resourcePatchMediator;
@@ -71,6 +101,7 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
 	@Getter @Setter private StorageChecker storageChecker;
 	@Getter @Setter private PlatformTransactionManager transactionManager;
 	@Getter private ApplicationContext applicationContext;
+	private DarwinInfrastructure infrastructure;
 
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
@@ -78,28 +109,81 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
     }
 
 	/**
-	 * Executes darwin instance logic.
+	 * Evolves the component unless it's evolved by {@link DarwinOrchestrator} together with other components.
 	 */
-	public void evolve() {
-    	afterPropertiesSet();
+	@Override
+	public void afterPropertiesSet() {
+		if (isOrchestrated() || isOrchestratorPresent()) {
+			if (log.isDebugEnabled()) {
+				log.debug("Evolution of component " + modelVersion.getComponentName() + " is left to the orchestrator.");
+			}
+		} else {
+			evolve();
+		}
 	}
 
 	/**
-	 * Initializes Darwin and updates infrastructure tables for it.
-	 * Must be called prior calling {@link #updateComponent(String, String)}
+	 * Initializes Darwin, updates infrastructure tables for it and executes darwin instance logic.
 	 */
-	@Override
-	public void afterPropertiesSet() {
+	public void evolve() {
 		initDefaults();
 		if (!isSwitchOff()) {
+			final String componentName = modelVersion.getComponentName();
+			final String componentVersion = modelVersion.getComponentVersion();
+			//when the same patch set was already applied there is nothing to do
+			final String fingerprint = fingerprintCheck ? computeFingerprint(componentName, componentVersion) : null;
+			if (fingerprint != null && fingerprint.equals(darwinStorage.getFingerprintForComponent(componentName))) {
+				if (log.isDebugEnabled()) {
+					log.debug("Component " + componentName + " patch set matches the one already applied - skipping darwin.");
+				}
+				return;
+			}
+
 			//set up itself first
 			updateMyself();
 
 			//set up target component
-			updateComponent(modelVersion.getComponentName(), modelVersion.getComponentVersion());
+			if (updateComponent(componentName, componentVersion) && fingerprint != null) {
+				darwinStorage.updateFingerprintForComponent(componentName, fingerprint);
+			}
 		}
 	}
 
+	/**
+	 * Returns true if there is {@link DarwinOrchestrator} registered in the application context.
+	 */
+	private boolean isOrchestratorPresent() {
+		return applicationContext != null &&
+				applicationContext.getBeanNamesForType(DarwinOrchestrator.class, true, false).length > 0;
+	}
+
+	/**
+	 * Computes fingerprint of the patch set of the component. Fingerprint covers Darwin version, component version,
+	 * platform and names and contents of all create, patch and guess scripts available for the platform. Contents
+	 * are hashed as they're stored (compressed scripts are not decompressed) and they're neither rendered nor
+	 * tokenized. Returns null when some of the scripts cannot be read.
+	 */
+	@Nullable
+	private String computeFingerprint(@NonNull String componentName, @NonNull String componentVersion) {
+		final Platform platform = storageChecker.getPlatform();
+		final StringBuilder patchSet = new StringBuilder(512)
+				.append(DARWIN_COMPONENT_VERSION).append('|')
+				.append(componentVersion).append('|')
+				.append(platform.name()).append('\n');
+		for (Resource resource : resourceAccessor.getSortedResourceList(platform)) {
+			final String patchName = resourceMatcher.getPatchNameFromResource(resource);
+			if (resourceMatcher.getPatchType(patchName) != null) {
+				try (final InputStream inputStream = resource.getInputStream()) {
+					patchSet.append(patchName).append(':').append(DigestUtils.md5DigestAsHex(inputStream)).append('\n');
+				} catch (IOException ex) {
+					log.warn("Cannot read " + patchName + " of component " + componentName + ", fingerprint cannot be computed: " + ex.getMessage());
+					return null;
+				}
+			}
+		}
+		return DigestUtils.md5DigestAsHex(patchSet.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
 	/**
      * This method will initializes default objects needed for autoupdating.
      * Only dbResourceAccessor, resourceMather and resourceNameAnalyzer needs to be set in order to use Darwin.
@@ -120,36 +204,35 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
         boolean lockerPresent = beanFactory.containsBean("locker") && beanFactory.getBean("locker") instanceof Locker;
         if (dataSourcePresent) {
             try {
-                DataSource ds = applicationContext.getBean(dataSourceName, DataSource.class);
-                //noinspection EmptyTryBlock,unused
-	            try (final Connection connection = ds.getConnection()) {
-	            	// do nothing we just need to check connection is alive
-	            }
+                final DataSource ds = applicationContext.getBean(dataSourceName, DataSource.class);
+                transactionManager = transactionManagerPresent ?
+                        (PlatformTransactionManager) applicationContext.getBean(transactionManagerName) : null;
+                infrastructure = DarwinInfrastructure.getInstance(applicationContext, dataSourceName, ds);
             } catch (NoSuchBeanDefinitionException | SQLException e) {
                 dataSourcePresent = false;
-                transactionManagerPresent = false;
             }
         }
         if (dataSourcePresent) {
-            DataSource ds = (DataSource) applicationContext.getBean(dataSourceName);
-            transactionManager = transactionManagerPresent ?
-					(PlatformTransactionManager) applicationContext.getBean(transactionManagerName) : null;
-
+            final DataSource ds = infrastructure.getDataSource();
 			resourcePatchMediator = new ResourcePatchMediator(resourceMatcher);
 
 			if (storageChecker == null) {
 				final DefaultDatabaseStorageChecker defaultChecker = new DefaultDatabaseStorageChecker(resourcePatchMediator);
 				defaultChecker.setDataSource(ds);
+				defaultChecker.setPlatform(infrastructure.getPlatform());
 				defaultChecker.setTransactionManager(transactionManager);
 				defaultChecker.setResourceAccessor(resourceAccessor);
 				defaultChecker.setResourceMatcher(resourceMatcher);
+				defaultChecker.setBinarySearchGuess(binarySearchGuess);
 				defaultChecker.setResourceLoader(applicationContext);
+				defaultChecker.sharePatchAndTableExistence(infrastructure.getPatchAndTableExistence());
 				storageChecker = defaultChecker;
 			}
             if (darwinStorage == null) {
 				final DefaultDatabaseDarwinStorage defaultPersister = new DefaultDatabaseDarwinStorage(resourceMatcher, storageChecker);
 				defaultPersister.setDataSource(ds);
-                defaultPersister.setTransactionManager(transactionManager);
+				defaultPersister.setPlatform(infrastructure.getPlatform());
+				defaultPersister.setTransactionManager(transactionManager);
 				defaultPersister.setResourceLoader(applicationContext);
 				darwinStorage = defaultPersister;
 			}
@@ -157,21 +240,20 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
 				final DefaultDatabaseStorageUpdater defaultUpdater = new DefaultDatabaseStorageUpdater(storageChecker);
 				defaultUpdater.setResourceAccessor(resourceAccessor);
                 defaultUpdater.setDataSource(ds);
+				defaultUpdater.setPlatform(infrastructure.getPlatform());
                 defaultUpdater.setTransactionManager(transactionManager);
 				defaultUpdater.setResourceLoader(applicationContext);
+				defaultUpdater.setCheckpointPolicy(checkpointPolicy);
+				patchCheckpointPolicies.forEach(defaultUpdater::setPatchCheckpointPolicy);
+				defaultUpdater.setDmlBatchSize(dmlBatchSize);
+				defaultUpdater.setPipelineSize(pipelineSize);
 				storageUpdater = defaultUpdater;
 			}
             if (locker == null) {
 				if (lockerPresent) {
 					locker = applicationContext.getBean("locker", Locker.class);
 				} else {
-					locker = new Locker();
-					locker.setResourceAccessor(resourceAccessor);
-					locker.setApplicationContext(applicationContext);
-					locker.setSkipIfDataSourceNotPresent(skipIfDataSourceNotPresent);
-					locker.setDataSourceName(dataSourceName);
-					locker.setTransactionManagerName(transactionManagerName);
-					locker.afterPropertiesSet();
+					locker = infrastructure.getLocker(dataSourceName, transactionManagerName, skipIfDataSourceNotPresent);
 				}
             }
         } else {
@@ -188,11 +270,11 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
      * Performs model evolution of specified component to specified version.
      * Uses default resourceMatcher and resourceNameAnalyzer.
      */
-    private void updateComponent(
+    private boolean updateComponent(
 		@NonNull String componentName,
 		@NonNull String componentVersion
 	) {
-        updateComponent(componentName, componentVersion, this.resourceMatcher);
+        return updateComponent(componentName, componentVersion, this.resourceMatcher);
     }
 
     /**
@@ -201,8 +283,9 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
      * @param componentName          Name of component which we want update
      * @param componentVersionString version o which we update component, MAX version
      * @param resourceMatcher        {@link ResourceMatcher}
+     * @return true if the component was evolved, false if it was skipped
      */
-    private void updateComponent(
+    private boolean updateComponent(
 		@NonNull String componentName,
 		@NonNull String componentVersionString,
         @NonNull ResourceMatcher resourceMatcher
@@ -211,30 +294,98 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
 			if(log.isDebugEnabled()) {
 				log.debug("Darwin is switched off - no data source accessible.");
 			}
+			return false;
 		} else {
 			final VersionComparator versionComparator = new VersionComparator();
 			final VersionDescriptor lastStoredVersion = darwinStorage.getVersionDescriptorForComponent(componentName);
 			final VersionDescriptor currentVersion = new VersionDescriptor(componentVersionString);
 
-			ensureRunsUniquely(
+			//lock free check - there is no need to lease the lock when there is nothing to do
+			if (!isEvolutionPending(componentName, lastStoredVersion, currentVersion, resourceMatcher, versionComparator)) {
+				if (log.isDebugEnabled()) {
+					log.debug("Component " + componentName + " is up to date in version " + lastStoredVersion + ".");
+				}
+				return true;
+			}
+
+			return ensureRunsUniquely(
 					componentName, lastStoredVersion, versionComparator,
-					() -> doUpdateComponent(
-							lastStoredVersion, componentName, resourceMatcher,
-							versionComparator, currentVersion
-					)
+					() -> !isEvolutionPending(
+							componentName, darwinStorage.getVersionDescriptorForComponent(componentName),
+							currentVersion, resourceMatcher, versionComparator
+					),
+					() -> {
+						//another node might have done the job while we were waiting for the lock
+						final VersionDescriptor storedVersion = darwinStorage.getVersionDescriptorForComponent(componentName);
+						if (isEvolutionPending(componentName, storedVersion, currentVersion, resourceMatcher, versionComparator)) {
+							doUpdateComponent(
+									storedVersion, componentName, resourceMatcher,
+									versionComparator, currentVersion
+							);
+						} else if (log.isDebugEnabled()) {
+							log.debug("Component " + componentName + " was already updated to version " + storedVersion + " meanwhile.");
+						}
+					}
 			);
 		}
-
-
     }
 
+	/**
+	 * Returns true if there is any work for the component - ie. its version is not known or is lesser than current
+	 * version or there is any create or evolve patch up to the current version that has not been finished yet.
+	 * The check requires only read access to the database and doesn't execute any guess scripts.
+	 */
+	private boolean isEvolutionPending(
+		@NonNull String componentName,
+		@Nullable VersionDescriptor storedVersion,
+		@NonNull VersionDescriptor currentVersion,
+		@NonNull ResourceMatcher resourceMatcher,
+		@NonNull VersionComparator versionComparator
+	) {
+		if (storedVersion == null || versionComparator.compare(storedVersion, currentVersion) < 0) {
+			return true;
+		}
+		if (!storageChecker.existPatchAndSqlTable()) {
+			return true;
+		}
+		final Platform platform = storageChecker.getPlatform();
+		final PatchLedger ledger = darwinStorage.getPatchLedger(componentName, platform);
+		final Patch[] patches = resourcePatchMediator.getPatches(
+				resourceAccessor.getSortedResourceList(platform),
+				componentName, platform, storageChecker,
+				ledger, PatchType.EVOLVE
+		);
+		for (Patch patch : patches) {
+			final PatchType patchType = resourceMatcher.getPatchType(patch.getPatchName());
+			if (patchType == PatchType.EVOLVE || patchType == PatchType.CREATE) {
+				if (versionComparator.compare(resourceMatcher.getVersionFromPatch(patch), currentVersion) <= 0 &&
+						!ledger.isFinished(patch.getPatchName())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * This method is used to setup extra Darwin instance that looks up to the Classpath and initializes data
-	 * structures for Darwin itself.
+	 * structures for Darwin itself. Data structures are evolved only once for each data source - all Darwin instances
+	 * share the {@link DarwinInfrastructure} that also prevents the update of the Darwin itself from running concurrently.
 	 */
-	private void updateMyself() {
+	void updateMyself() {
+		if (infrastructure == null) {
+			doUpdateMyself();
+		} else {
+			infrastructure.ensureDarwinEvolved(darwinStorage, this::doUpdateMyself);
+		}
+	}
+
+	/**
+	 * Evolves data structures of Darwin itself.
+	 */
+	private void doUpdateMyself() {
 		final DefaultResourceAccessor resourceAccessor = new DefaultResourceAccessor(
-				applicationContext, "UTF-8", "classpath:/META-INF/lib_db_darwin/sql/"
+				applicationContext, "UTF-8", "classpath:/META-INF/darwin/sql/"
 		);
 		final SchemaVersion myVersion = new SchemaVersion(DARWIN_COMPONENT_NAME, DARWIN_COMPONENT_VERSION);
 		final Darwin meUpdater = new Darwin();
@@ -244,8 +395,9 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
 		meUpdater.setTransactionManagerName(transactionManagerName);
 		meUpdater.setSkipIfDataSourceNotPresent(skipIfDataSourceNotPresent);
 		meUpdater.setResourceAccessor(resourceAccessor);
+		meUpdater.setLocker(locker);
 		meUpdater.initDefaults();
-		updateComponent(myVersion.getComponentName(), myVersion.getComponentVersion());
+		meUpdater.updateComponent(myVersion.getComponentName(), myVersion.getComponentVersion());
 	}
 
     /**
@@ -306,58 +458,96 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
 		@NonNull ResourceMatcher resourceMatcher,
 		@NonNull VersionComparator versionComparator
 	) {
+        //load all patch records of the component at once
+        final PatchLedger ledger = darwinStorage.getPatchLedger(componentName, platform);
         //get appropriate patches
         final Patch[] patches = resourcePatchMediator.getPatches(
         		resourceAccessor.getSortedResourceList(platform),
-                componentName, platform, darwinStorage, storageChecker,
-				PatchType.EVOLVE
+                componentName, platform, storageChecker,
+				ledger, PatchType.EVOLVE
 		);
 
         if (patches != null) {
-            fillMissingPatchesForComponentsCreatedBeforePatchTableWasAvailable(patches, componentName, versionComparator, lastStoredVersion);
-            for (final Patch patch : patches) {
-                //we should try to envelope operation with transaction boundary - some database engines allows to rollback
-                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
-                transaction.execute(new TransactionCallbackWithoutResult() {
-                    @Override
-                    protected void doInTransactionWithoutResult(TransactionStatus status) {
-                        if (
-                        		resourceMatcher.isResourceAcceptable(PatchType.EVOLVE, patch.getPatchName()) ||
-								resourceMatcher.isResourceAcceptable(PatchType.CREATE, patch.getPatchName())
-						) {
-                            if (versionComparator.compare(resourceMatcher.getVersionFromPatch(patch), currentVersion) <= 0) {
-	                            if (!darwinStorage.isPatchFinishedInDb(patch)) {
-                                    VersionDescriptor resourceVersion = resourceMatcher.getVersionFromPatch(patch);
-									Assert.isTrue(resourceVersion != null, "Resource version must not be null for patch: " + patch.getPatchName());
-		                            try {
-			                            if (storageChecker.guessPatchAlreadyApplied(componentName, darwinStorage, resourceVersion)) {
-				                            log.info("Component " + componentName + " marked as updated to version " + resourceVersion + " because guessing logic matched database contents.");
-				                            darwinStorage.markPatchAsFinished(patch);
-			                            } else {
-				                            storageUpdater.executeScript(patch.getResourcesPath(), componentName,
-						                            darwinStorage, storageChecker);
-				                            log.info("Component " + componentName + " storage updated to version " + resourceVersion + ".");
+            fillMissingPatchesForComponentsCreatedBeforePatchTableWasAvailable(patches, componentName, versionComparator, lastStoredVersion, ledger);
+            // next patches are prepared on background thread while the current one is executed
+            try (final PatchPrefetcher prefetcher = patchPrefetchQueueSize > 0 ?
+                    new PatchPrefetcher(
+                            resourceAccessor,
+                            getResourcePathsToExecute(patches, currentVersion, resourceMatcher, versionComparator, ledger),
+                            patchPrefetchQueueSize
+                    ) : null) {
+                for (final Patch patch : patches) {
+                    //we should try to envelope operation with transaction boundary - some database engines allows to rollback
+                    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                    transaction.execute(new TransactionCallbackWithoutResult() {
+                        @Override
+                        protected void doInTransactionWithoutResult(TransactionStatus status) {
+                            final PatchType patchType = resourceMatcher.getPatchType(patch.getPatchName());
+                            if (patchType == PatchType.EVOLVE || patchType == PatchType.CREATE) {
+                                final VersionDescriptor resourceVersion = resourceMatcher.getVersionFromPatch(patch);
+                                if (versionComparator.compare(resourceVersion, currentVersion) <= 0) {
+		                            if (!ledger.isFinished(patch.getPatchName())) {
+										Assert.isTrue(resourceVersion != null, "Resource version must not be null for patch: " + patch.getPatchName());
+			                            try {
+				                            if (storageChecker.guessPatchAlreadyApplied(componentName, darwinStorage, resourceVersion)) {
+					                            log.info("Component " + componentName + " marked as updated to version " + resourceVersion + " because guessing logic matched database contents.");
+					                            markPatchAsFinished(patch, ledger);
+				                            } else {
+					                            final PreparedPatch preparedPatch = prefetcher == null ?
+							                            null : prefetcher.take(patch.getResourcesPath());
+					                            if (preparedPatch == null) {
+						                            storageUpdater.executeScript(patch.getResourcesPath(), componentName,
+								                            darwinStorage, storageChecker);
+					                            } else {
+						                            storageUpdater.executeScript(preparedPatch, componentName,
+								                            darwinStorage, storageChecker);
+					                            }
+					                            log.info("Component " + componentName + " storage updated to version " + resourceVersion + ".");
+				                            }
+				                            //update stored version only when resource version is lesser than lastStoredVersion
+				                            //and when everything went ok
+				                            if (lastStoredVersion == null ||
+						                            versionComparator.compare(resourceVersion, lastStoredVersion) > 0) {
+                                                darwinStorage.updateVersionDescriptorForComponent(componentName,
+                                                    resourceVersion.toString());
+                                            }
+			                            } catch (Exception ex) {
+				                            log.error("Failed to update " + componentName + " storage to version " + resourceVersion + ": " + ex.getMessage());
+				                            throw ex;
 			                            }
-			                            //update stored version only when resource version is lesser than lastStoredVersion
-			                            //and when everything went ok
-			                            if (lastStoredVersion == null ||
-					                            versionComparator.compare(resourceVersion, lastStoredVersion) > 0) {
-                                            darwinStorage.updateVersionDescriptorForComponent(componentName,
-                                                resourceVersion.toString());
-                                        }
-		                            } catch (Exception ex) {
-			                            log.error("Failed to update " + componentName + " storage to version " + resourceVersion + ": " + ex.getMessage());
-			                            throw ex;
-		                            }
+                                    }
                                 }
                             }
                         }
-                    }
-                });
+                    });
+                }
             }
         }
     }
 
+	/**
+	 * Returns resource paths of the patches that are going to be executed in the order of their execution.
+	 */
+	@NonNull
+	private List<String> getResourcePathsToExecute(
+		@NonNull Patch[] patches,
+		@NonNull VersionDescriptor currentVersion,
+		@NonNull ResourceMatcher resourceMatcher,
+		@NonNull VersionComparator versionComparator,
+		@NonNull PatchLedger ledger
+	) {
+		final List<String> resourcePaths = new ArrayList<>(patches.length);
+		for (Patch patch : patches) {
+			final PatchType patchType = resourceMatcher.getPatchType(patch.getPatchName());
+			if ((patchType == PatchType.EVOLVE || patchType == PatchType.CREATE) &&
+					versionComparator.compare(resourceMatcher.getVersionFromPatch(patch), currentVersion) <= 0 &&
+					!ledger.isFinished(patch.getPatchName())) {
+				resourcePaths.add(patch.getResourcesPath());
+			}
+		}
+		return resourcePaths;
+	}
+
     /**
      * If DARWIN has record about component but there is no record in DARWIN_PATCH for this component
      * we will believe that all patches has been successfully applied and mark them as done in DARWIN_PATCH
@@ -366,30 +556,28 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
      * @param patches           list of patches available
      * @param componentName     name of component witch is darwind
      * @param versionComparator version of component which is present in DARWIN
+     * @param ledger            snapshot of patches recorded for the component
      */
 	private void fillMissingPatchesForComponentsCreatedBeforePatchTableWasAvailable(
 		@NonNull Patch[] patches,
 		@NonNull String componentName,
 		@NonNull VersionComparator versionComparator,
-		@Nullable VersionDescriptor storedVersion
+		@Nullable VersionDescriptor storedVersion,
+		@NonNull PatchLedger ledger
 	) {
         if (storedVersion != null && storageChecker.existPatchAndSqlTable()) {
-            if (darwinStorage.isAnyPatchRecordedFor(componentName)) {
+            if (!ledger.isEmpty()) {
                 // because there is some record in DARWIN_PATCH table, initial setup check only create script
 				// that was skipped in previous versions
 				for (final Patch patch : patches) {
 					if (resourceMatcher.isResourceAcceptable(PatchType.CREATE, patch.getPatchName())) {
-						if (!darwinStorage.isPatchRecordedByResourcePath(patch.getResourcesPath(),patch.getComponentName())) {
+						if (!ledger.isRecorded(patch.getPatchName())) {
 							// update only if not created before as failed
 							TransactionTemplate transaction = new TransactionTemplate(transactionManager);
 							transaction.execute(new TransactionCallbackWithoutResult() {
 								@Override
 								protected void doInTransactionWithoutResult(TransactionStatus status) {
-									darwinStorage.markPatchAsFinished(
-											darwinStorage.insertPatchToDatabase(
-													patch.getPatchName(), patch.getComponentName(), LocalDateTime.now(), storageChecker.getPlatform()
-											)
-									);
+									markPatchAsFinished(patch, ledger);
 								}
 							});
 						}
@@ -405,16 +593,10 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
 					@Override
 					protected void doInTransactionWithoutResult(TransactionStatus status) {
 						for(Patch patch : patches) {
-							if(
-									resourceMatcher.isResourceAcceptable(PatchType.EVOLVE, patch.getPatchName()) ||
-									resourceMatcher.isResourceAcceptable(PatchType.CREATE, patch.getPatchName())
-							) {
+							final PatchType patchType = resourceMatcher.getPatchType(patch.getPatchName());
+							if(patchType == PatchType.EVOLVE || patchType == PatchType.CREATE) {
 								if(versionComparator.compare(resourceMatcher.getVersionFromPatch(patch), storedVersion) <= 0) {
-									darwinStorage.markPatchAsFinished(
-											darwinStorage.insertPatchToDatabase(
-													patch.getPatchName(), patch.getComponentName(), LocalDateTime.now(), storageChecker.getPlatform()
-											)
-									);
+									markPatchAsFinished(patch, ledger);
 								}
 							}
 						}
@@ -424,6 +606,24 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
         }
     }
 
+	/**
+	 * Records the patch in the database as finished and registers the record to the ledger. Patch record is created
+	 * when it's not present yet.
+	 */
+	private void markPatchAsFinished(@NonNull Patch patch, @NonNull PatchLedger ledger) {
+		if (!storageChecker.existPatchAndSqlTable()) {
+			return;
+		}
+		final Patch recordedPatch = patch.isInDb() ?
+				patch :
+				darwinStorage.insertPatchToDatabase(
+						patch.getPatchName(), patch.getComponentName(), LocalDateTime.now(), storageChecker.getPlatform()
+				);
+		darwinStorage.markPatchAsFinished(recordedPatch);
+		recordedPatch.setFinishedOn(LocalDateTime.now());
+		ledger.register(recordedPatch);
+	}
+
     /**
      * Creates new storage of a component.
      */
@@ -470,29 +670,43 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
 
 	/**
 	 * Ensures that the provided logic executes uniquely by acquiring a process-level lock
-	 * for the specified component. If the lock is already held by another thread, the logic is skipped.
+	 * for the specified component. While the lock is held by another node, the node watches whether
+	 * the component was evolved meanwhile and if so, it returns without executing the logic.
 	 *
 	 * @param componentName the name of the component for which the process lock is to be acquired
 	 * @param existingVersion the existing version descriptor of the component
 	 * @param comparator the comparator used to compare version descriptors
+	 * @param evolvedMeanwhile cheap check whether another node has already evolved the component
 	 * @param logic the logic to execute once the lock is acquired
+	 * @return true if the logic was executed or component was evolved by another node, false if it was skipped
 	 */
-    private void ensureRunsUniquely(
+    private boolean ensureRunsUniquely(
 		@NonNull String componentName,
 		@Nullable VersionDescriptor existingVersion,
 		@NonNull VersionComparator comparator,
+		@NonNull BooleanSupplier evolvedMeanwhile,
 		@NonNull Runnable logic
 	) {
 		final String processName = getLockProcessName(componentName);
 		String unlockKey = null;
 		try {
 
-			unlockKey = acquireProcessLockKey(componentName, existingVersion, comparator, processName);
+			if (lockFunctionalityAvailable(componentName, existingVersion, comparator)) {
+				unlockKey = acquireProcessLockKey(processName, evolvedMeanwhile);
+				if (unlockKey == null) {
+					if (log.isInfoEnabled()) {
+						log.info("Component " + componentName + " was evolved by another node meanwhile.");
+					}
+					return true;
+				}
+			}
 			logic.run();
+			return true;
 
 		} catch(ProcessIsLockedException ignored) {
 			String msg = "Skipping darwin - another thread is performing darwin for component " + componentName;
 			log.error(msg);
+			return false;
 		} finally {
 			//release lock
 			if(unlockKey != null) {
@@ -502,41 +716,40 @@ public class Darwin implements InitializingBean, ApplicationContextAware {
 	}
 
     /**
-     * Method will try to acquire lock for auto update process. If it fails, it tries several times with some
-     * timeout to let original thread to unlock the process.
+     * Method will try to acquire lock for auto update process. If it fails, it polls the lock repeatedly
+     * for at most {@link #getLockTimeoutInSeconds()} to let original thread to unlock the process. Between
+     * the attempts it checks whether the lock owner has already evolved the component and if so, it stops waiting.
      *
+     * @return unlock key or null if the component was evolved by another node meanwhile
      * @throws ProcessIsLockedException if process is locked and cannot be acquired
      */
 	@Nullable
     private String acquireProcessLockKey(
-		@NonNull String componentName,
-		@Nullable VersionDescriptor storedVersion,
-		@NonNull VersionComparator versionComparator,
-		@NonNull String processName
+		@NonNull String processName,
+		@NonNull BooleanSupplier evolvedMeanwhile
 	) throws ProcessIsLockedException {
-
-	    String unlockKey = null;
-	    if (lockFunctionalityAvailable(componentName, storedVersion, versionComparator)) {
-            int i = 0;
-            ProcessIsLockedException lastException = null;
-            while (unlockKey == null && i < 20) {
-                try {
-                    i++;
-                    unlockKey = locker.leaseProcess(processName, LocalDateTime.now().plusMinutes(2), 5000);
-                } catch (ProcessIsLockedException ex) {
-                    lastException = ex;
-                    if (log.isInfoEnabled()) {
-                        log.info("Process " + processName + " is currently locked ... try " + i + " out of " + 20);
-                    }
-                }
-            }
-
-            if (unlockKey == null && lastException != null) {
-                throw lastException;
-            }
-        }
-
-        return unlockKey;
+		final int attempts = (int) Math.max(1L, lockTimeoutInSeconds * 1000L / Math.max(1L, lockPollIntervalInMillis));
+		ProcessIsLockedException lastException = null;
+		for (int i = 1; i <= attempts; i++) {
+			try {
+				return locker.leaseProcess(processName, LocalDateTime.now().plusMinutes(2));
+			} catch (ProcessIsLockedException ex) {
+				lastException = ex;
+				if (evolvedMeanwhile.getAsBoolean()) {
+					return null;
+				}
+				if (log.isInfoEnabled() && i % 10 == 1) {
+					log.info("Process " + processName + " is currently locked ... try " + i + " out of " + attempts);
+				}
+				try {
+					Thread.sleep(lockPollIntervalInMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		throw lastException;
     }
 
     /**
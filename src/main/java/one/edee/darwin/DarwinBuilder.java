@@ -7,8 +7,15 @@ import one.edee.darwin.resources.DefaultResourceAccessor;
 import one.edee.darwin.resources.DefaultResourceMatcher;
 import one.edee.darwin.resources.ResourceAccessor;
 import one.edee.darwin.resources.ResourceMatcher;
+import one.edee.darwin.storage.CheckpointPolicy;
 import org.springframework.context.ApplicationContext;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Builder factory for Darwin
  *
@@ -21,6 +28,17 @@ public class DarwinBuilder {
 	private boolean skipIfDataSourceNotPresent;
 	private ResourceMatcher resourceMatcher = new DefaultResourceMatcher();
 	private Locker locker;
+	private boolean fingerprintCheck = true;
+	private boolean binarySearchGuess;
+	private CheckpointPolicy checkpointPolicy = CheckpointPolicy.PER_STATEMENT;
+	private final Map<String, CheckpointPolicy> patchCheckpointPolicies = new HashMap<>();
+	private int dmlBatchSize = 1;
+	private int pipelineSize = 1;
+	private int patchPrefetchQueueSize;
+	private int lockTimeoutInSeconds = 100;
+	private long lockPollIntervalInMillis = 5000L;
+	private final Set<String> dependsOn = new LinkedHashSet<>();
+	private boolean orchestrated;
 	private String dataSourceName = "dataSource";
 	private String transactionManagerName = "transactionManager";
 
@@ -64,6 +82,57 @@ public class DarwinBuilder {
 		return this;
 	}
 
+	public DarwinBuilder withFingerprintCheck(boolean fingerprintCheck) {
+		this.fingerprintCheck = fingerprintCheck;
+		return this;
+	}
+
+	public DarwinBuilder withBinarySearchGuess(boolean binarySearchGuess) {
+		this.binarySearchGuess = binarySearchGuess;
+		return this;
+	}
+
+	public DarwinBuilder withCheckpointPolicy(CheckpointPolicy checkpointPolicy) {
+		this.checkpointPolicy = checkpointPolicy;
+		return this;
+	}
+
+	public DarwinBuilder withCheckpointPolicy(String patchName, CheckpointPolicy checkpointPolicy) {
+		this.patchCheckpointPolicies.put(patchName, checkpointPolicy);
+		return this;
+	}
+
+	public DarwinBuilder withDmlBatchSize(int dmlBatchSize) {
+		this.dmlBatchSize = dmlBatchSize;
+		return this;
+	}
+
+	public DarwinBuilder withPipelineSize(int pipelineSize) {
+		this.pipelineSize = pipelineSize;
+		return this;
+	}
+
+	public DarwinBuilder withPatchPrefetch(int queueSize) {
+		this.patchPrefetchQueueSize = queueSize;
+		return this;
+	}
+
+	public DarwinBuilder withLockTimeout(int lockTimeoutInSeconds, long lockPollIntervalInMillis) {
+		this.lockTimeoutInSeconds = lockTimeoutInSeconds;
+		this.lockPollIntervalInMillis = lockPollIntervalInMillis;
+		return this;
+	}
+
+	public DarwinBuilder withDependsOn(String... componentNames) {
+		this.dependsOn.addAll(Arrays.asList(componentNames));
+		return this;
+	}
+
+	public DarwinBuilder withOrchestrated(boolean orchestrated) {
+		this.orchestrated = orchestrated;
+		return this;
+	}
+
 	public Darwin build() {
 		final Darwin darwin = new Darwin();
 		darwin.setApplicationContext(ctx);
@@ -74,6 +143,17 @@ public class DarwinBuilder {
 		darwin.setDataSourceName(dataSourceName);
 		darwin.setTransactionManagerName(transactionManagerName);
 		darwin.setLocker(locker);
+		darwin.setFingerprintCheck(fingerprintCheck);
+		darwin.setBinarySearchGuess(binarySearchGuess);
+		darwin.setCheckpointPolicy(checkpointPolicy);
+		darwin.setPatchCheckpointPolicies(new HashMap<>(patchCheckpointPolicies));
+		darwin.setDmlBatchSize(dmlBatchSize);
+		darwin.setPipelineSize(pipelineSize);
+		darwin.setPatchPrefetchQueueSize(patchPrefetchQueueSize);
+		darwin.setLockTimeoutInSeconds(lockTimeoutInSeconds);
+		darwin.setLockPollIntervalInMillis(lockPollIntervalInMillis);
+		darwin.setDependsOn(new LinkedHashSet<>(dependsOn));
+		darwin.setOrchestrated(orchestrated);
 
 		return darwin;
 	}
@@ -0,0 +1,123 @@
+package one.edee.darwin;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.apachecommons.CommonsLog;
+import one.edee.darwin.locker.Locker;
+import one.edee.darwin.model.Platform;
+import one.edee.darwin.model.version.VersionComparator;
+import one.edee.darwin.model.version.VersionDescriptor;
+import one.edee.darwin.resources.DefaultResourceAccessor;
+import one.edee.darwin.resources.ResourceAccessor;
+import one.edee.darwin.storage.DarwinStorage;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.AbstractApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Infrastructure shared by all {@link Darwin} instances of the application context working with the same
+ * {@link DataSource}. Connection to the data source is verified and platform is detected only once, all instances
+ * share default locker and knowledge about presence of the infrastructural tables. Data structures of Darwin itself
+ * are evolved only once as well. Darwin storage is not shared - it depends on the resource matcher and transaction
+ * manager of each instance.
+ *
+ * Infrastructure is registered as singleton in the application context so that it is released together with it.
+ */
+@CommonsLog
+class DarwinInfrastructure {
+	private static final String BEAN_NAME_PREFIX = "darwinInfrastructure#";
+	private static final Object REGISTRY_MONITOR = new Object();
+
+	private final ApplicationContext applicationContext;
+	@Getter private final DataSource dataSource;
+	@Getter private final Platform platform;
+	@Getter private final AtomicBoolean patchAndTableExistence = new AtomicBoolean();
+	private Locker locker;
+	private boolean darwinEvolved;
+
+	private DarwinInfrastructure(@NonNull ApplicationContext applicationContext, @NonNull DataSource dataSource) {
+		this.applicationContext = applicationContext;
+		this.dataSource = dataSource;
+		this.platform = Platform.getPlatformFromJdbcUrl(dataSource);
+	}
+
+	/**
+	 * Returns infrastructure for the data source of passed name. Infrastructure is created on first access, when
+	 * connection to the data source cannot be opened, nothing is registered and exception is propagated so that
+	 * the next access tries it again.
+	 */
+	@NonNull
+	static DarwinInfrastructure getInstance(
+		@NonNull ApplicationContext applicationContext,
+		@NonNull String dataSourceName,
+		@NonNull DataSource dataSource
+	) throws SQLException {
+		final ConfigurableListableBeanFactory beanFactory = ((AbstractApplicationContext) applicationContext).getBeanFactory();
+		final String beanName = BEAN_NAME_PREFIX + dataSourceName;
+		synchronized (REGISTRY_MONITOR) {
+			if (beanFactory.containsSingleton(beanName)) {
+				return (DarwinInfrastructure) beanFactory.getSingleton(beanName);
+			}
+			//noinspection EmptyTryBlock,unused
+			try (final Connection connection = dataSource.getConnection()) {
+				// do nothing we just need to check connection is alive
+			}
+			final DarwinInfrastructure infrastructure = new DarwinInfrastructure(applicationContext, dataSource);
+			beanFactory.registerSingleton(beanName, infrastructure);
+			return infrastructure;
+		}
+	}
+
+	/**
+	 * Returns default locker shared by all Darwin instances of this data source.
+	 */
+	@NonNull
+	synchronized Locker getLocker(
+		@NonNull String dataSourceName,
+		@NonNull String transactionManagerName,
+		boolean skipIfDataSourceNotPresent
+	) {
+		if (locker == null) {
+			final Locker defaultLocker = new Locker();
+			defaultLocker.setResourceAccessor(createDarwinResourceAccessor(applicationContext));
+			defaultLocker.setApplicationContext(applicationContext);
+			defaultLocker.setSkipIfDataSourceNotPresent(skipIfDataSourceNotPresent);
+			defaultLocker.setDataSourceName(dataSourceName);
+			defaultLocker.setTransactionManagerName(transactionManagerName);
+			defaultLocker.afterPropertiesSet();
+			locker = defaultLocker;
+		}
+		return locker;
+	}
+
+	/**
+	 * Runs evolution of Darwin own data structures unless it was already done for this data source. When data
+	 * structures were evolved before, cheap version check in passed storage verifies that they weren't dropped meanwhile.
+	 */
+	synchronized void ensureDarwinEvolved(@NonNull DarwinStorage darwinStorage, @NonNull Runnable evolution) {
+		if (darwinEvolved) {
+			final VersionDescriptor storedVersion = darwinStorage.getVersionDescriptorForComponent(Darwin.DARWIN_COMPONENT_NAME);
+			if (storedVersion != null &&
+					new VersionComparator().compare(storedVersion, new VersionDescriptor(Darwin.DARWIN_COMPONENT_VERSION)) >= 0) {
+				return;
+			}
+			if (log.isDebugEnabled()) {
+				log.debug("Darwin data structures disappeared from the database - evolving them again.");
+			}
+			patchAndTableExistence.set(false);
+		}
+		evolution.run();
+		darwinEvolved = true;
+	}
+
+	@NonNull
+	private static ResourceAccessor createDarwinResourceAccessor(@NonNull ApplicationContext applicationContext) {
+		return new DefaultResourceAccessor(applicationContext, "UTF-8", "classpath:/META-INF/darwin/sql/");
+	}
+
+}
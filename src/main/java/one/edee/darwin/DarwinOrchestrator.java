@@ -0,0 +1,395 @@
+package one.edee.darwin;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.apachecommons.CommonsLog;
+import one.edee.darwin.exception.EvolutionFailedException;
+import one.edee.darwin.exception.ProcessIsLockedException;
+import one.edee.darwin.locker.Locker;
+import one.edee.darwin.model.EvolutionReport;
+import one.edee.darwin.model.EvolutionReport.ComponentResult;
+import one.edee.darwin.model.EvolutionReport.Status;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Orchestrator evolves data layers of multiple components at once. Each {@link Darwin} instance represents a node in
+ * the dependency graph and may declare names of the components it depends on by {@link Darwin#setDependsOn(Set)}.
+ * Components that don't depend on each other are evolved concurrently on a bounded thread pool - each of them uses
+ * its own database connection. Component is evolved only after all components it depends on were evolved
+ * successfully, when any of them fails the component is skipped.
+ *
+ * When orchestrator is registered in the Spring context, {@link Darwin} beans don't evolve in their
+ * {@link Darwin#afterPropertiesSet()} method but wait for the orchestrator that evolves all of them once all singletons
+ * are instantiated. Be aware that this means that other beans cannot rely on the data layer being ready during their
+ * initialization.
+ *
+ * In the batch lease mode (see {@link #setBatchLease(boolean)}) single cluster wide lease of each data source covers
+ * evolution of all its components. Lease is renewed automatically while the batch runs, so that orchestrators on other
+ * nodes wait for the lease only once and then find all components already evolved. Components still lease their own
+ * locks when they have some work to do, so that they're excluded from Darwin instances evolved without orchestrator
+ * or by orchestrator without batch lease. When the lease cannot be renewed, no other component is started.
+ */
+@CommonsLog
+public class DarwinOrchestrator implements SmartInitializingSingleton, ApplicationContextAware {
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+	private static final String BATCH_PROCESS_NAME = "darwin:batch";
+	private static final long BATCH_LEASE_RETRY_WAIT_MILLIS = 1000L;
+	/**
+	 * Maximal number of components evolved concurrently.
+	 */
+	@Getter @Setter private int parallelism = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	/**
+	 * When true, {@link EvolutionFailedException} is thrown when evolution of any component fails.
+	 */
+	@Getter @Setter private boolean failOnError = true;
+	/**
+	 * When true, single lease named `darwin:batch` is acquired in each data source for the whole set of its components.
+	 */
+	@Getter @Setter private boolean batchLease;
+	/**
+	 * Duration of the batch lease, lease is renewed automatically after 70% of this time elapses.
+	 */
+	@Getter @Setter private int batchLeaseDurationInSeconds = 120;
+	/**
+	 * Maximal time to wait for the batch lease held by another node.
+	 */
+	@Getter @Setter private int batchLeaseTimeoutInSeconds = 600;
+	/**
+	 * Report of the last evolution.
+	 */
+	@Getter private EvolutionReport lastReport;
+	private ApplicationContext applicationContext;
+
+	@Override
+	public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+		this.applicationContext = applicationContext;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		final Collection<Darwin> darwins = applicationContext.getBeansOfType(Darwin.class).values();
+		evolve(darwins);
+	}
+
+	/**
+	 * Evolves all passed components respecting their dependencies and returns aggregated report.
+	 *
+	 * @throws EvolutionFailedException when evolution of any component fails and {@link #isFailOnError()} is true
+	 * @throws IllegalStateException when dependencies of the components form a cycle
+	 */
+	@NonNull
+	public EvolutionReport evolve(@NonNull Collection<Darwin> darwins) {
+		final Map<String, Darwin> nodes = new LinkedHashMap<>();
+		for (Darwin darwin : darwins) {
+			final String componentName = darwin.getModelVersion().getComponentName();
+			if (nodes.put(componentName, darwin) != null) {
+				throw new IllegalStateException("Component " + componentName + " is registered in multiple Darwin instances!");
+			}
+		}
+		final Map<String, Set<String>> dependents = new HashMap<>();
+		final Map<String, Integer> unfinishedDependencies = new HashMap<>();
+		for (Map.Entry<String, Darwin> entry : nodes.entrySet()) {
+			int count = 0;
+			for (String dependency : entry.getValue().getDependsOn()) {
+				if (nodes.containsKey(dependency)) {
+					dependents.computeIfAbsent(dependency, s -> new LinkedHashSet<>()).add(entry.getKey());
+					count++;
+				} else {
+					log.warn("Component " + entry.getKey() + " depends on component " + dependency +
+							" that is not evolved by this orchestrator - dependency is ignored.");
+				}
+			}
+			unfinishedDependencies.put(entry.getKey(), count);
+		}
+		assertNoCycle(nodes.keySet(), dependents, unfinishedDependencies);
+
+		final List<BatchLease> leases = batchLease ? acquireBatchLeases(nodes.values()) : Collections.emptyList();
+		final AtomicReference<Exception> leaseLoss = new AtomicReference<>();
+		final ScheduledExecutorService leaseRenewer = leases.isEmpty() ? null : scheduleLeaseRenewal(leases, leaseLoss);
+		final EvolutionReport report = new EvolutionReport();
+		final ExecutorService executor = Executors.newFixedThreadPool(
+				Math.max(1, Math.min(parallelism, nodes.size())),
+				runnable -> {
+					final Thread thread = new Thread(runnable, "darwin-orchestrator-" + THREAD_COUNTER.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+		);
+		try {
+			final CompletionService<ComponentResult> completionService = new ExecutorCompletionService<>(executor);
+			final Set<String> blocked = new HashSet<>();
+			final Deque<String> ready = new ArrayDeque<>();
+			for (Map.Entry<String, Integer> entry : unfinishedDependencies.entrySet()) {
+				if (entry.getValue() == 0) {
+					ready.add(entry.getKey());
+				}
+			}
+			int running = 0;
+			int remaining = nodes.size();
+			while (remaining > 0) {
+				if (leaseLoss.get() != null) {
+					// components evolved meanwhile are not covered by the batch lease anymore
+					ready.clear();
+				}
+				while (!ready.isEmpty()) {
+					final Darwin darwin = nodes.get(ready.poll());
+					completionService.submit(() -> evolveComponent(darwin));
+					running++;
+				}
+				if (running == 0) {
+					break;
+				}
+				final ComponentResult result = completionService.take().get();
+				running--;
+				final Deque<ComponentResult> finished = new ArrayDeque<>();
+				finished.add(result);
+				while (!finished.isEmpty()) {
+					final ComponentResult finishedResult = finished.poll();
+					report.addResult(finishedResult);
+					remaining--;
+					for (String dependent : dependents.getOrDefault(finishedResult.getComponentName(), Collections.emptySet())) {
+						if (finishedResult.getStatus() != Status.FINISHED) {
+							blocked.add(dependent);
+						}
+						final int count = unfinishedDependencies.merge(dependent, -1, Integer::sum);
+						if (count == 0) {
+							if (blocked.contains(dependent)) {
+								log.warn("Skipping evolution of component " + dependent + " - some of the components it depends on were not evolved.");
+								finished.add(
+										new ComponentResult(
+												dependent, nodes.get(dependent).getModelVersion().getComponentVersion(),
+												Status.SKIPPED, 0L, null
+										)
+								);
+							} else {
+								ready.add(dependent);
+							}
+						}
+					}
+				}
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Darwin evolution was interrupted.", ex);
+		} catch (ExecutionException ex) {
+			throw new IllegalStateException("Darwin evolution failed unexpectedly.", ex.getCause());
+		} finally {
+			executor.shutdownNow();
+			if (leaseRenewer != null) {
+				leaseRenewer.shutdownNow();
+			}
+			releaseBatchLeases(leases);
+		}
+
+		this.lastReport = report;
+		if (leaseLoss.get() != null) {
+			log.error(report.toString());
+			throw new IllegalStateException(
+					"Batch lease was lost, evolution of remaining components was stopped.", leaseLoss.get()
+			);
+		}
+		if (report.isSuccessful()) {
+			log.info(report.toString());
+		} else {
+			log.error(report.toString());
+			if (failOnError) {
+				throw new EvolutionFailedException(report);
+			}
+		}
+		return report;
+	}
+
+	/**
+	 * Evolves single component and captures the outcome.
+	 */
+	@NonNull
+	private static ComponentResult evolveComponent(@NonNull Darwin darwin) {
+		final String componentName = darwin.getModelVersion().getComponentName();
+		final String componentVersion = darwin.getModelVersion().getComponentVersion();
+		final long start = System.currentTimeMillis();
+		try {
+			darwin.evolve();
+			return new ComponentResult(componentName, componentVersion, Status.FINISHED, System.currentTimeMillis() - start, null);
+		} catch (RuntimeException ex) {
+			log.error("Failed to evolve component " + componentName + ": " + ex.getMessage(), ex);
+			return new ComponentResult(componentName, componentVersion, Status.FAILED, System.currentTimeMillis() - start, ex);
+		}
+	}
+
+	/**
+	 * Acquires batch lease for each distinct locker of the components - components using different data sources are
+	 * covered by leases in each of them. Lease name doesn't depend on the components, so that orchestrators with
+	 * different sets of components exclude each other as well. Waits at most {@link #getBatchLeaseTimeoutInSeconds()} for leases held
+	 * by other nodes.
+	 */
+	@NonNull
+	private List<BatchLease> acquireBatchLeases(@NonNull Collection<Darwin> darwins) {
+		final Set<Locker> lockers = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Darwin darwin : darwins) {
+			try {
+				darwin.initDefaults();
+			} catch (RuntimeException ex) {
+				// failure is reported when the component is evolved
+				continue;
+			}
+			if (!darwin.isSwitchOff() && darwin.getLocker() != null) {
+				// lock table must exist before the lease is acquired
+				darwin.updateMyself();
+				lockers.add(darwin.getLocker());
+			}
+		}
+		final List<BatchLease> leases = new ArrayList<>(lockers.size());
+		try {
+			for (Locker locker : lockers) {
+				leases.add(acquireBatchLease(locker, BATCH_PROCESS_NAME));
+			}
+		} catch (RuntimeException ex) {
+			releaseBatchLeases(leases);
+			throw ex;
+		}
+		return leases;
+	}
+
+	/**
+	 * Leases the batch process, when it's held by another node waits until it is released or timeout elapses.
+	 */
+	@NonNull
+	private BatchLease acquireBatchLease(@NonNull Locker locker, @NonNull String processName) {
+		final long deadline = System.currentTimeMillis() + batchLeaseTimeoutInSeconds * 1000L;
+		while (true) {
+			try {
+				final String unlockKey = locker.leaseProcess(
+						processName, LocalDateTime.now().plusSeconds(batchLeaseDurationInSeconds)
+				);
+				return new BatchLease(locker, processName, unlockKey);
+			} catch (ProcessIsLockedException ex) {
+				if (System.currentTimeMillis() >= deadline) {
+					throw new IllegalStateException(
+							"Batch " + processName + " is still locked by another node after " +
+									batchLeaseTimeoutInSeconds + " seconds.", ex
+					);
+				}
+				if (log.isInfoEnabled()) {
+					log.info("Batch " + processName + " is being evolved by another node - waiting for it to finish.");
+				}
+				try {
+					Thread.sleep(BATCH_LEASE_RETRY_WAIT_MILLIS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Waiting for batch lease " + processName + " was interrupted.", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Schedules periodic renewal of the batch leases after 70% of their duration elapses. When any lease cannot be
+	 * renewed, the failure is stored to the passed reference and renewal stops.
+	 */
+	@NonNull
+	private ScheduledExecutorService scheduleLeaseRenewal(
+		@NonNull List<BatchLease> leases,
+		@NonNull AtomicReference<Exception> leaseLoss
+	) {
+		final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(
+				runnable -> {
+					final Thread thread = new Thread(runnable, "darwin-batch-lease-renewer-" + THREAD_COUNTER.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+		);
+		final long renewPeriod = Math.max(1L, batchLeaseDurationInSeconds * 700L);
+		renewer.scheduleAtFixedRate(
+				() -> {
+					if (leaseLoss.get() != null) {
+						return;
+					}
+					for (BatchLease lease : leases) {
+						try {
+							lease.getLocker().renewLease(
+									lease.getProcessName(), lease.getUnlockKey(),
+									LocalDateTime.now().plusSeconds(batchLeaseDurationInSeconds)
+							);
+						} catch (ProcessIsLockedException | RuntimeException ex) {
+							log.error("Failed to renew batch lease " + lease.getProcessName() + ": " + ex.getMessage(), ex);
+							leaseLoss.compareAndSet(null, ex);
+							return;
+						}
+					}
+				},
+				renewPeriod, renewPeriod, TimeUnit.MILLISECONDS
+		);
+		return renewer;
+	}
+
+	/**
+	 * Releases all passed batch leases, failure to release one of them doesn't prevent releasing the others.
+	 */
+	private static void releaseBatchLeases(@NonNull List<BatchLease> leases) {
+		for (BatchLease lease : leases) {
+			try {
+				lease.getLocker().releaseProcess(lease.getProcessName(), lease.getUnlockKey());
+			} catch (RuntimeException ex) {
+				log.error("Failed to release batch lease " + lease.getProcessName() + ": " + ex.getMessage(), ex);
+			}
+		}
+	}
+
+	/**
+	 * Verifies that dependency graph contains no cycle by topological ordering of its nodes.
+	 */
+	private static void assertNoCycle(
+		@NonNull Set<String> componentNames,
+		@NonNull Map<String, Set<String>> dependents,
+		@NonNull Map<String, Integer> unfinishedDependencies
+	) {
+		final Map<String, Integer> inDegree = new HashMap<>(unfinishedDependencies);
+		final Deque<String> queue = new ArrayDeque<>();
+		for (Map.Entry<String, Integer> entry : inDegree.entrySet()) {
+			if (entry.getValue() == 0) {
+				queue.add(entry.getKey());
+			}
+		}
+		int visited = 0;
+		while (!queue.isEmpty()) {
+			final String componentName = queue.poll();
+			visited++;
+			for (String dependent : dependents.getOrDefault(componentName, Collections.emptySet())) {
+				if (inDegree.merge(dependent, -1, Integer::sum) == 0) {
+					queue.add(dependent);
+				}
+			}
+		}
+		if (visited < componentNames.size()) {
+			final List<String> cycle = new ArrayList<>();
+			for (String componentName : componentNames) {
+				if (inDegree.get(componentName) > 0) {
+					cycle.add(componentName);
+				}
+			}
+			throw new IllegalStateException("Darwin components have cyclic dependencies: " + cycle);
+		}
+	}
+
+	/**
+	 * Lease of the batch process held by this orchestrator.
+	 */
+	@Data
+	private static class BatchLease {
+		private final Locker locker;
+		private final String processName;
+		private final String unlockKey;
+	}
+
+}
@@ -0,0 +1,19 @@
+package one.edee.darwin.exception;
+
+import lombok.Getter;
+import one.edee.darwin.model.EvolutionReport;
+
+/**
+ * Exception is thrown when evolution of one or more components orchestrated by
+ * {@link one.edee.darwin.DarwinOrchestrator} fails. Contains the aggregated report with results of all components.
+ */
+public class EvolutionFailedException extends RuntimeException {
+	private static final long serialVersionUID = 3349510573818402214L;
+	@Getter private final transient EvolutionReport report;
+
+	public EvolutionFailedException(EvolutionReport report) {
+		super(report.toString());
+		this.report = report;
+	}
+
+}
@@ -0,0 +1,105 @@
+package one.edee.darwin.model;
+
+import lombok.Data;
+import lombok.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Aggregated result of the evolution of multiple components. Contains one {@link ComponentResult} for each
+ * component in the order the components finished.
+ */
+public class EvolutionReport {
+	private final List<ComponentResult> results = new ArrayList<>();
+
+	/**
+	 * Registers result of single component evolution.
+	 */
+	public synchronized void addResult(@NonNull ComponentResult result) {
+		results.add(result);
+	}
+
+	/**
+	 * Returns results of all components in the order they finished.
+	 */
+	@NonNull
+	public synchronized List<ComponentResult> getResults() {
+		return Collections.unmodifiableList(new ArrayList<>(results));
+	}
+
+	/**
+	 * Returns result of particular component or null if component was not part of the evolution.
+	 */
+	@Nullable
+	public synchronized ComponentResult getResult(@NonNull String componentName) {
+		for (ComponentResult result : results) {
+			if (result.getComponentName().equals(componentName)) {
+				return result;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns true if all components were evolved successfully.
+	 */
+	public synchronized boolean isSuccessful() {
+		for (ComponentResult result : results) {
+			if (result.getStatus() != Status.FINISHED) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized String toString() {
+		final StringBuilder sb = new StringBuilder("Darwin evolution report:");
+		for (ComponentResult result : results) {
+			sb.append("\n - ").append(result);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Final state of the component evolution.
+	 */
+	public enum Status {
+
+		/**
+		 * Component data layer is up to date.
+		 */
+		FINISHED,
+		/**
+		 * Evolution of the component failed.
+		 */
+		FAILED,
+		/**
+		 * Evolution of the component was not even started because some of the components it depends on failed.
+		 */
+		SKIPPED
+
+	}
+
+	/**
+	 * Result of evolution of the single component.
+	 */
+	@Data
+	public static class ComponentResult {
+		private final String componentName;
+		private final String componentVersion;
+		private final Status status;
+		private final long durationInMillis;
+		@Nullable private final Throwable exception;
+
+		@Override
+		public String toString() {
+			return componentName + " (" + componentVersion + "): " + status + " in " + durationInMillis + "ms" +
+					(exception == null ? "" : " - " + exception.getMessage());
+		}
+	}
+
+}
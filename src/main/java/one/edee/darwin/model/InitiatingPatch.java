@@ -7,8 +7,12 @@ import java.time.LocalDateTime;
 /**
  * Specific type of the patch that is used to gather patch id from the database.
  *
+ * @deprecated patch records are created lazily when the patch is really applied, already recorded patches are read
+ * from {@link one.edee.darwin.storage.DarwinStorage#getPatchLedger(String, Platform)}
+ *
  * @author Radek Salay, FG Forest a.s. 6/22/16.
  */
+@Deprecated
 public class InitiatingPatch extends Patch {
 
 
@@ -25,6 +25,10 @@ public class Patch {
 
     private int processTime;
     private LocalDateTime finishedOn;
+    /**
+     * File name of the resource when it differs from the patch name - ie. for compressed patches.
+     */
+    private String resourceName;
 
     /**
      * @param patchName     name of current patch, for example 1.0.4
@@ -87,7 +91,7 @@ public class Patch {
      * @return
      */
     public String getResourcesPath() {
-        return getPlatform().getFolderName() + "/" + getPatchName();
+        return getPlatform().getFolderName() + "/" + (resourceName == null ? getPatchName() : resourceName);
     }
 
     /**
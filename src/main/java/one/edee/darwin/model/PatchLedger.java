@@ -0,0 +1,80 @@
+package one.edee.darwin.model;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory snapshot of all patches recorded in DARWIN_PATCH table for single component and platform. Snapshot is
+ * loaded by single query and allows to answer questions about patch state without additional database round trips.
+ * Darwin keeps the snapshot up to date by registering patches it records or finishes during the evolution.
+ */
+public class PatchLedger {
+	@Getter private final String componentName;
+	@Getter private final Platform platform;
+	private final Map<String, Patch> patches = new LinkedHashMap<>();
+
+	public PatchLedger(@NonNull String componentName, @NonNull Platform platform) {
+		this.componentName = componentName;
+		this.platform = platform;
+	}
+
+	/**
+	 * Returns recorded patch of the passed name or null if no such patch is recorded.
+	 *
+	 * @param patchName file name of the patch, example patch_1.1.sql
+	 */
+	@Nullable
+	public Patch getPatch(@NonNull String patchName) {
+		return patches.get(patchName);
+	}
+
+	/**
+	 * Returns true if there is a record of the patch in the database.
+	 *
+	 * @param patchName file name of the patch, example patch_1.1.sql
+	 */
+	public boolean isRecorded(@NonNull String patchName) {
+		return patches.containsKey(patchName);
+	}
+
+	/**
+	 * Returns true if patch was entirely and successfully applied - ie. its {@link Patch#getFinishedOn()} is set.
+	 *
+	 * @param patchName file name of the patch, example patch_1.1.sql
+	 */
+	public boolean isFinished(@NonNull String patchName) {
+		final Patch patch = patches.get(patchName);
+		return patch != null && patch.getFinishedOn() != null;
+	}
+
+	/**
+	 * Returns true if there is no patch recorded for the component.
+	 */
+	public boolean isEmpty() {
+		return patches.isEmpty();
+	}
+
+	/**
+	 * Returns all recorded patches.
+	 */
+	@NonNull
+	public Collection<Patch> getPatches() {
+		return Collections.unmodifiableCollection(patches.values());
+	}
+
+	/**
+	 * Registers patch record to the ledger. Existing record of the same name is replaced.
+	 *
+	 * @param patch record from the database
+	 */
+	public void register(@NonNull Patch patch) {
+		patches.put(patch.getPatchName(), patch);
+	}
+
+}
@@ -0,0 +1,28 @@
+package one.edee.darwin.model;
+
+import lombok.Data;
+import lombok.NonNull;
+
+import java.util.List;
+
+/**
+ * Patch read from the resource, rendered and split to individual SQL statements in advance, so that it can be executed
+ * without touching the resource again. Hash of each statement (see {@link SqlCommandLedger#computeHash(String)}) is
+ * computed in advance as well.
+ */
+@Data
+public final class PreparedPatch {
+	/**
+	 * Path of the patch resource, example mysql/patch_1.5.sql
+	 */
+	@NonNull private final String resourcePath;
+	/**
+	 * SQL statements of the patch in the order of their execution.
+	 */
+	@NonNull private final List<String> statements;
+	/**
+	 * Hashes of the {@link #statements} at the same positions.
+	 */
+	@NonNull private final List<String> statementHashes;
+
+}
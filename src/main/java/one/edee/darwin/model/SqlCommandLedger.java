@@ -0,0 +1,80 @@
+package one.edee.darwin.model;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory snapshot of all SQL statements recorded in DARWIN_SQL table for single patch. Snapshot is loaded by single
+ * query and allows to resume partially applied patch without querying the database for each of its statements.
+ * Statements are identified by their hashes (see {@link #computeHash(String)}).
+ */
+public class SqlCommandLedger {
+	@Getter private final int patchId;
+	/**
+	 * Statement hash -> true if at least one of the records of the statement is finished.
+	 */
+	private final Map<String, Boolean> statements = new HashMap<>();
+	/**
+	 * Records created by older Darwin versions may miss the hash.
+	 */
+	@Getter private boolean unhashedStatementPresent;
+
+	public SqlCommandLedger(int patchId) {
+		this.patchId = patchId;
+	}
+
+	/**
+	 * Computes hash of the statement stored in DARWIN_SQL.statementHash column.
+	 */
+	@NonNull
+	public static String computeHash(@NonNull String statement) {
+		return DigestUtils.md5DigestAsHex(statement.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns true if there is a record of the statement in the database.
+	 *
+	 * @param statementHash hash of the statement computed by {@link #computeHash(String)}
+	 */
+	public boolean isRecorded(@NonNull String statementHash) {
+		return statements.containsKey(statementHash);
+	}
+
+	/**
+	 * Returns true if at least one record of the statement was successfully finished.
+	 *
+	 * @param statementHash hash of the statement computed by {@link #computeHash(String)}
+	 */
+	public boolean isFinished(@NonNull String statementHash) {
+		return Boolean.TRUE.equals(statements.get(statementHash));
+	}
+
+	/**
+	 * Returns true if there is no statement recorded for the patch.
+	 */
+	public boolean isEmpty() {
+		return statements.isEmpty() && !unhashedStatementPresent;
+	}
+
+	/**
+	 * Registers statement record to the ledger.
+	 *
+	 * @param statementHash hash of the statement or null if the record misses it
+	 * @param finishedOn date and time the statement was finished or null if it failed
+	 */
+	public void register(@Nullable String statementHash, @Nullable LocalDateTime finishedOn) {
+		if (statementHash == null) {
+			unhashedStatementPresent = true;
+		} else {
+			statements.merge(statementHash, finishedOn != null, Boolean::logicalOr);
+		}
+	}
+
+}
@@ -2,7 +2,6 @@ package one.edee.darwin.model.version;
 
 import java.io.Serializable;
 import java.util.Comparator;
-import java.util.Iterator;
 
 /**
  * Compares two VersionDescriptor objects.
@@ -49,51 +48,38 @@ public class VersionComparator implements Comparator<VersionDescriptor>, Seriali
 		if (o1 == null && o2 != null) return -1;
 		if (o2 == null) throw new IllegalArgumentException("Version to be compared against (second parameter) cannot be null!");
 
-		final Iterator<Serializable> itAlfa = o1.getIdentification().iterator();
-		final Iterator<Serializable> itBeta = o2.getIdentification().iterator();
-        Object lastAlfa = null;
-		while(itAlfa.hasNext()) {
-			final Object alfaVersion = itAlfa.next();
-			Object betaVersion = itBeta.hasNext() ? itBeta.next() : null;
-
-			if(betaVersion == null) {
-				if (alfaVersion instanceof Integer) {
-					betaVersion = 0;
+		final int alfaSize = o1.size();
+		final int betaSize = o2.size();
+		for (int i = 0; i < alfaSize; i++) {
+			if (o1.isNumeric(i)) {
+				if (i >= betaSize) {
+					// missing part is treated as zero
+					if (o1.getNumber(i) > 0) return 1;
+					else if (o1.getNumber(i) < 0) return -1;
+				} else if (o2.isNumeric(i)) {
+					if (o1.getNumber(i) > o2.getNumber(i)) return 1;
+					else if (o1.getNumber(i) < o2.getNumber(i)) return -1;
 				} else {
-					return -1;
-				}
-			}
-
-			if(alfaVersion instanceof Integer) {
-				if(betaVersion instanceof Integer) {
-					if((Integer) alfaVersion > (Integer) betaVersion) return 1;
-					else if((Integer) alfaVersion < (Integer) betaVersion) return -1;
-				}
-				else {
 					return 1;
 				}
-			}
-			else {
-				if (betaVersion instanceof Integer) {
+			} else {
+				if (i >= betaSize || o2.isNumeric(i)) {
 					return -1;
 				} else {
-					int result = ((String)alfaVersion).compareToIgnoreCase((String)betaVersion);
+					int result = o1.getQualifier(i).compareToIgnoreCase(o2.getQualifier(i));
 					if (result > 0) return 1;
 					if (result < 0) return -1;
 				}
 			}
-            lastAlfa = alfaVersion;
 		}
 
-        if(itBeta.hasNext()) {
-            Object nextVersion = itBeta.next();
-            if (lastAlfa instanceof Integer) {
-                return (nextVersion instanceof Integer)?-1:1;
-            }
-            else {
-                return -1;
-            }
-        }
+		if (betaSize > alfaSize) {
+			if (alfaSize > 0 && o1.isNumeric(alfaSize - 1)) {
+				return o2.isNumeric(alfaSize) ? -1 : 1;
+			} else {
+				return -1;
+			}
+		}
 
 		return 0;
 	}
@@ -3,9 +3,10 @@ package one.edee.darwin.model.version;
 import lombok.Getter;
 
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.StringTokenizer;
 
 /**
  * Holds version of specific library.
@@ -20,71 +21,159 @@ import java.util.StringTokenizer;
  * 1.8.9.1-alpha
  * 1.8-RC1
  *
+ * Descriptor is immutable - numeric parts are kept in primitive array, textual parts (qualifiers) are interned and
+ * the hash is computed once, so that descriptors can be compared and used as keys without any allocation.
+ *
  * @author Jan Novotný, FG Forrest a.s. (c) 2007
  */
-public class VersionDescriptor {
+public final class VersionDescriptor {
 	private static final String VERSION_DELIMITER = ".";
 	private static final String VERSION_DELIMITERS = "._-";
 	private static final String SNAPSHOT_POSTFIX = "SNAPSHOT";
+	private static final int[] NO_NUMBERS = new int[0];
+	private static final String[] NO_QUALIFIERS = new String[0];
+
+	/**
+	 * Numeric parts of the version, value is meaningful only when there is no qualifier at the same index.
+	 */
+	private final int[] numbers;
+	/**
+	 * Textual parts of the version, null at the index of the numeric part.
+	 */
+	private final String[] qualifiers;
+	private final int hash;
+	@Getter private final boolean snapshot;
 
-	@Getter private final List<Serializable> identification = new LinkedList<>();
-	@Getter private boolean snapshot;
-
-    public VersionDescriptor(String fullVersion) {
-		for(StringTokenizer st = new StringTokenizer(fullVersion, VERSION_DELIMITERS, false); st.hasMoreTokens();) {
-			final String version = st.nextToken();
-			try {
-                //ignore snapshot postfix
-                if (!SNAPSHOT_POSTFIX.equals(version))   {
-					// parse value
-					int numberVersion = Integer.parseInt(version);
-					identification.add(numberVersion);
+	public VersionDescriptor(String fullVersion) {
+		final String[] tokens = tokenize(fullVersion);
+		int[] parsedNumbers = new int[tokens.length];
+		String[] parsedQualifiers = new String[tokens.length];
+		int size = 0;
+		boolean snapshotFound = false;
+		for (String token : tokens) {
+			//ignore snapshot postfix
+			if (SNAPSHOT_POSTFIX.equals(token)) {
+				snapshotFound = true;
+			} else {
+				final long number = parseNumber(token);
+				if (number < 0) {
+					parsedQualifiers[size] = token.intern();
 				} else {
-                	snapshot = true;
-                }
-			} catch(NumberFormatException ex) {
-				identification.add(version);
+					parsedNumbers[size] = (int) number;
+				}
+				size++;
 			}
 		}
 
-		int lastIndex = identification.size();
-		for(int i = identification.size() - 1; i >= 0; i--) {
-			final Object version = identification.get(i);
-			if (version instanceof Integer) {
-				if ((Integer) version != 0) {
-	                lastIndex = i + 1;
-					break;
-				}
+		// numeric parts after the last non-zero numeric part are meaningless - 1.0.0 equals to 1
+		int lastIndex = size;
+		for (int i = size - 1; i >= 0; i--) {
+			if (parsedQualifiers[i] == null && parsedNumbers[i] != 0) {
+				lastIndex = i + 1;
+				break;
 			}
 		}
-
-		for(int i = lastIndex; i < identification.size();) {
-			if (identification.get(i) instanceof Integer) {
-				identification.remove(i);
-			} else {
-				i++;
+		int finalSize = lastIndex;
+		for (int i = lastIndex; i < size; i++) {
+			if (parsedQualifiers[i] != null) {
+				parsedQualifiers[finalSize] = parsedQualifiers[i];
+				parsedNumbers[finalSize] = 0;
+				finalSize++;
 			}
 		}
+
+		this.numbers = finalSize == 0 ? NO_NUMBERS : Arrays.copyOf(parsedNumbers, finalSize);
+		this.qualifiers = finalSize == 0 ? NO_QUALIFIERS : Arrays.copyOf(parsedQualifiers, finalSize);
+		this.snapshot = snapshotFound;
+		this.hash = computeHash(this.numbers, this.qualifiers);
+	}
+
+	private VersionDescriptor(int[] numbers, String[] qualifiers, boolean snapshot) {
+		this.numbers = numbers;
+		this.qualifiers = qualifiers;
+		this.snapshot = snapshot;
+		this.hash = computeHash(numbers, qualifiers);
 	}
 
 	/**
-	 * Adds numeric version number to existing version.
+	 * Returns new version with numeric version number added to the end of this version.
 	 * @param version
 	 * @return
 	 */
-	public VersionDescriptor addNumericVersion(int version) {
-		identification.add(version);
-		return this;
+	public VersionDescriptor withNumericVersion(int version) {
+		final int[] newNumbers = Arrays.copyOf(numbers, numbers.length + 1);
+		newNumbers[numbers.length] = version;
+		return new VersionDescriptor(newNumbers, Arrays.copyOf(qualifiers, qualifiers.length + 1), snapshot);
 	}
 
 	/**
-	 * Adds textual version number to existing version.
+	 * Returns new version with textual version number added to the end of this version.
 	 * @param version
 	 * @return
 	 */
+	public VersionDescriptor withAlphanumericVersion(String version) {
+		final String[] newQualifiers = Arrays.copyOf(qualifiers, qualifiers.length + 1);
+		newQualifiers[qualifiers.length] = version.intern();
+		return new VersionDescriptor(Arrays.copyOf(numbers, numbers.length + 1), newQualifiers, snapshot);
+	}
+
+	/**
+	 * Descriptor is immutable and this method no longer modifies it - it returns new version with numeric version
+	 * number added to the end of this version, callers must use the returned instance.
+	 * @deprecated use {@link #withNumericVersion(int)}
+	 */
+	@Deprecated
+	public VersionDescriptor addNumericVersion(int version) {
+		return withNumericVersion(version);
+	}
+
+	/**
+	 * Descriptor is immutable and this method no longer modifies it - it returns new version with textual version
+	 * number added to the end of this version, callers must use the returned instance.
+	 * @deprecated use {@link #withAlphanumericVersion(String)}
+	 */
+	@Deprecated
 	public VersionDescriptor addAlphanumericVersion(String version) {
-		identification.add(version);
-		return this;
+		return withAlphanumericVersion(version);
+	}
+
+	/**
+	 * Returns count of the version parts.
+	 */
+	public int size() {
+		return numbers.length;
+	}
+
+	/**
+	 * Returns true if the version part at the index is numeric.
+	 */
+	public boolean isNumeric(int index) {
+		return qualifiers[index] == null;
+	}
+
+	/**
+	 * Returns numeric version part at the index.
+	 */
+	public int getNumber(int index) {
+		return numbers[index];
+	}
+
+	/**
+	 * Returns textual version part at the index or null if the part is numeric.
+	 */
+	public String getQualifier(int index) {
+		return qualifiers[index];
+	}
+
+	/**
+	 * Returns all version parts - numeric ones as {@link Integer}, textual ones as {@link String}.
+	 */
+	public List<Serializable> getIdentification() {
+		final List<Serializable> identification = new ArrayList<>(numbers.length);
+		for (int i = 0; i < numbers.length; i++) {
+			identification.add(qualifiers[i] == null ? Integer.valueOf(numbers[i]) : qualifiers[i]);
+		}
+		return Collections.unmodifiableList(identification);
 	}
 
 	public boolean equals(Object o) {
@@ -92,22 +181,70 @@ public class VersionDescriptor {
 		if(o == null || getClass() != o.getClass()) return false;
 
 		final VersionDescriptor that = (VersionDescriptor)o;
-		return identification.equals(that.identification);
+		return hash == that.hash && Arrays.equals(numbers, that.numbers) && Arrays.equals(qualifiers, that.qualifiers);
 	}
 
 	public int hashCode() {
-		return identification.hashCode();
+		return hash;
 	}
 
 	public String toString() {
 		final StringBuilder fullVersion = new StringBuilder();
-		for(int i = 0; i < identification.size(); i++) {
-			Object version = identification.get(i);
-			fullVersion.append(version);
-			if(i < identification.size() - 1) fullVersion.append(VERSION_DELIMITER);
+		for(int i = 0; i < numbers.length; i++) {
+			if (qualifiers[i] == null) {
+				fullVersion.append(numbers[i]);
+			} else {
+				fullVersion.append(qualifiers[i]);
+			}
+			if(i < numbers.length - 1) fullVersion.append(VERSION_DELIMITER);
 		}
 
 		return fullVersion.toString();
 	}
 
-}
\ No newline at end of file
+	private static String[] tokenize(String fullVersion) {
+		final List<String> tokens = new ArrayList<>(4);
+		int start = -1;
+		for (int i = 0; i < fullVersion.length(); i++) {
+			if (VERSION_DELIMITERS.indexOf(fullVersion.charAt(i)) >= 0) {
+				if (start >= 0) {
+					tokens.add(fullVersion.substring(start, i));
+					start = -1;
+				}
+			} else if (start < 0) {
+				start = i;
+			}
+		}
+		if (start >= 0) {
+			tokens.add(fullVersion.substring(start));
+		}
+		return tokens.toArray(new String[0]);
+	}
+
+	/**
+	 * Returns value of the token or -1 if the token is not a non-negative int number.
+	 */
+	private static long parseNumber(String token) {
+		final int start = token.length() > 1 && token.charAt(0) == '+' ? 1 : 0;
+		if (token.length() == start) {
+			return -1;
+		}
+		long result = 0;
+		for (int i = start; i < token.length(); i++) {
+			final char c = token.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			result = result * 10 + (c - '0');
+			if (result > Integer.MAX_VALUE) {
+				return -1;
+			}
+		}
+		return result;
+	}
+
+	private static int computeHash(int[] numbers, String[] qualifiers) {
+		return 31 * Arrays.hashCode(numbers) + Arrays.hashCode(qualifiers);
+	}
+
+}
@@ -0,0 +1,164 @@
+package one.edee.darwin.resources;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.NonNull;
+import one.edee.darwin.model.Platform;
+import org.springframework.core.io.Resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Decorator of {@link ResourceAccessor} that keeps text contents and tokenized statements of the resources in memory,
+ * so that repeatedly used scripts (infrastructural SQL, guess scripts) are not read and parsed again and again.
+ * Cache is limited by the estimated size of the cached strings in bytes - least recently used entries are evicted
+ * first, entries larger than the whole cache are not cached at all. Missing resources are not cached.
+ *
+ * Statements passed to the consumer by {@link #processTokenizedSQLScriptContentFromResource(String, Consumer)} are
+ * never cached - streaming is meant for large patches that are executed only once.
+ */
+public class CachingResourceAccessor implements ResourceAccessor {
+	public static final long DEFAULT_MAX_SIZE_IN_BYTES = 1024 * 1024;
+	private static final String TEXT_PREFIX = "text:";
+	private static final String STATEMENTS_PREFIX = "statements:";
+	@Getter private final ResourceAccessor delegate;
+	@Getter private final long maxSizeInBytes;
+	private final LinkedHashMap<String, CachedContent> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private long sizeInBytes;
+
+	public CachingResourceAccessor(@NonNull ResourceAccessor delegate) {
+		this(delegate, DEFAULT_MAX_SIZE_IN_BYTES);
+	}
+
+	public CachingResourceAccessor(@NonNull ResourceAccessor delegate, long maxSizeInBytes) {
+		this.delegate = delegate;
+		this.maxSizeInBytes = maxSizeInBytes;
+	}
+
+	@Override
+	public Resource[] getSortedResourceList(Platform platform) {
+		return delegate.getSortedResourceList(platform);
+	}
+
+	@Override
+	public List<String> getTokenizedSQLScriptContentFromResource(String resourcePath) {
+		final List<String> statements = getOrLoad(
+				STATEMENTS_PREFIX + resourcePath,
+				key -> {
+					final List<String> result = delegate.getTokenizedSQLScriptContentFromResource(resourcePath);
+					return result == null ? null : Collections.unmodifiableList(new ArrayList<>(result));
+				},
+				CachingResourceAccessor::estimateSize
+		);
+		return statements == null ? null : new ArrayList<>(statements);
+	}
+
+	@Override
+	public void processTokenizedSQLScriptContentFromResource(String resourcePath, Consumer<String> statementConsumer) {
+		delegate.processTokenizedSQLScriptContentFromResource(resourcePath, statementConsumer);
+	}
+
+	@Override
+	public String getTextContentFromResource(String resourcePath) {
+		return getOrLoad(
+				TEXT_PREFIX + resourcePath,
+				key -> delegate.getTextContentFromResource(resourcePath),
+				CachingResourceAccessor::estimateSize
+		);
+	}
+
+	/**
+	 * Returns number of lookups served from the cache.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns number of lookups that had to be served by the delegate.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns estimated size of all cached contents in bytes.
+	 */
+	public synchronized long getSizeInBytes() {
+		return sizeInBytes;
+	}
+
+	/**
+	 * Drops all cached contents. Counters are kept.
+	 */
+	public synchronized void invalidate() {
+		cache.clear();
+		sizeInBytes = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T getOrLoad(@NonNull String key, @NonNull Function<String, T> loader, @NonNull Function<T, Long> sizeEstimator) {
+		synchronized (this) {
+			final CachedContent cachedContent = cache.get(key);
+			if (cachedContent != null) {
+				hitCount.incrementAndGet();
+				return (T) cachedContent.getContent();
+			}
+		}
+		missCount.incrementAndGet();
+		final T content = loader.apply(key);
+		if (content != null) {
+			final long size = sizeEstimator.apply(content);
+			if (size <= maxSizeInBytes) {
+				store(key, new CachedContent(content, size));
+			}
+		}
+		return content;
+	}
+
+	private synchronized void store(@NonNull String key, @NonNull CachedContent content) {
+		final CachedContent previous = cache.put(key, content);
+		if (previous != null) {
+			sizeInBytes -= previous.getSizeInBytes();
+		}
+		sizeInBytes += content.getSizeInBytes();
+		final Iterator<Map.Entry<String, CachedContent>> it = cache.entrySet().iterator();
+		while (sizeInBytes > maxSizeInBytes && it.hasNext()) {
+			final Map.Entry<String, CachedContent> eldest = it.next();
+			sizeInBytes -= eldest.getValue().getSizeInBytes();
+			it.remove();
+		}
+	}
+
+	private static long estimateSize(@NonNull String text) {
+		return 2L * text.length();
+	}
+
+	private static long estimateSize(@NonNull List<String> statements) {
+		long size = 0;
+		for (String statement : statements) {
+			size += estimateSize(statement);
+		}
+		return size;
+	}
+
+	/**
+	 * Cached content with its estimated size.
+	 */
+	@Data
+	private static class CachedContent {
+		private final Object content;
+		private final long sizeInBytes;
+	}
+
+}
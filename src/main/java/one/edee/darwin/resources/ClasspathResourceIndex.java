@@ -0,0 +1,329 @@
+package one.edee.darwin.resources;
+
+import lombok.NonNull;
+import lombok.extern.apachecommons.CommonsLog;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Index of the classpath resources shared by all {@link DefaultResourceAccessor accessors} using the same class loader.
+ * Instead of scanning the classpath once for each platform folder, the index walks the resource roots of the accessors
+ * (for example `META-INF/darwin/sql/`) and partitions the found resources by the platform directory they are placed in.
+ * Accessors register their resource roots when they're created, the first lookup then indexes all registered roots
+ * at once - each jar file containing any of them is read only once for all of them. Roots registered after the lookup
+ * are indexed together on the next lookup of any of them. Only the resource roots of the accessors are indexed. The index
+ * holds its class loader weakly, so that it doesn't prevent the class loader of redeployed application from being
+ * collected.
+ *
+ * Semantics of the `classpath:` and `classpath*:` prefixes are kept - for `classpath:` location only the resources
+ * of the first classpath root containing the directory are returned, for `classpath*:` location resources of all roots
+ * containing the directory are returned in the class loader order. The roots containing the directory are resolved
+ * by the class loader lookup, which doesn't walk the classpath.
+ */
+@CommonsLog
+public class ClasspathResourceIndex {
+	private static final Map<ClassLoader, ClasspathResourceIndex> INSTANCES = new WeakHashMap<>();
+	private static final String CLASSPATH_ALL_URL_PREFIX = PathMatchingResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX;
+	private static final String CLASSPATH_URL_PREFIX = ResourceUtils.CLASSPATH_URL_PREFIX;
+	private final WeakReference<ClassLoader> classLoader;
+	/**
+	 * Resources indexed by the resource root and the location key of the directory they are placed in.
+	 */
+	private final Map<String, Map<String, List<Resource>>> index = new ConcurrentHashMap<>();
+	/**
+	 * Registered resource roots that have not been indexed yet.
+	 */
+	private final Set<String> pendingRoots = new LinkedHashSet<>();
+	private final AtomicInteger scanCount = new AtomicInteger();
+
+	ClasspathResourceIndex(@NonNull ClassLoader classLoader) {
+		this.classLoader = new WeakReference<>(classLoader);
+	}
+
+	/**
+	 * Returns index shared by all accessors using the class loader.
+	 */
+	@NonNull
+	public static ClasspathResourceIndex getInstance(@Nullable ClassLoader classLoader) {
+		final ClassLoader effectiveClassLoader = classLoader == null ? ClassUtils.getDefaultClassLoader() : classLoader;
+		synchronized (INSTANCES) {
+			return INSTANCES.computeIfAbsent(effectiveClassLoader, ClasspathResourceIndex::new);
+		}
+	}
+
+	/**
+	 * Registers the resource root of the accessor so that it is indexed together with the other roots on the first
+	 * lookup. Locations that cannot be served by the index are ignored.
+	 *
+	 * @param resourceRoot classpath location of the resource root of the accessor ending with slash,
+	 *                     example classpath:/META-INF/darwin/sql/
+	 */
+	public void register(@NonNull String resourceRoot) {
+		final String relativeRoot = getRelativeRoot(resourceRoot);
+		if (relativeRoot != null && !index.containsKey(relativeRoot)) {
+			synchronized (pendingRoots) {
+				pendingRoots.add(relativeRoot);
+			}
+		}
+	}
+
+	/**
+	 * Returns resources placed directly in the directory, the same ones {@link PathMatchingResourcePatternResolver}
+	 * returns for the `directory + "*"` pattern. Returns null when the location cannot be served by the index
+	 * (it's not a classpath location, contains wildcards, is not placed in the resource root or cannot be matched
+	 * to the indexed roots) and the caller must scan it by itself.
+	 *
+	 * @param resourceRoot classpath location of the resource root of the accessor ending with slash,
+	 *                     example classpath:/META-INF/darwin/sql/
+	 * @param directory classpath location of the directory in the resource root ending with slash,
+	 *                  example classpath:/META-INF/darwin/sql/mysql/
+	 */
+	@Nullable
+	public Resource[] getResources(@NonNull String resourceRoot, @NonNull String directory) {
+		final ClassLoader classLoader = this.classLoader.get();
+		final boolean allRoots;
+		final String prefix;
+		if (directory.startsWith(CLASSPATH_ALL_URL_PREFIX)) {
+			allRoots = true;
+			prefix = CLASSPATH_ALL_URL_PREFIX;
+		} else if (directory.startsWith(CLASSPATH_URL_PREFIX)) {
+			allRoots = false;
+			prefix = CLASSPATH_URL_PREFIX;
+		} else {
+			return null;
+		}
+		final String relativeRoot = getRelativeRoot(resourceRoot);
+		if (classLoader == null || relativeRoot == null || !resourceRoot.startsWith(prefix)) {
+			return null;
+		}
+		final String relativePath = toRelativePath(directory.substring(prefix.length()));
+		if (!relativePath.endsWith("/") || !relativePath.startsWith(relativeRoot) || containsWildcard(relativePath)) {
+			return null;
+		}
+		try {
+			final List<URL> directoryUrls;
+			if (allRoots) {
+				directoryUrls = Collections.list(classLoader.getResources(relativePath));
+			} else {
+				final URL directoryUrl = classLoader.getResource(relativePath);
+				directoryUrls = directoryUrl == null ? Collections.emptyList() : Collections.singletonList(directoryUrl);
+			}
+			if (directoryUrls.isEmpty()) {
+				return new Resource[0];
+			}
+			final Map<String, List<Resource>> partitions = getPartitions(classLoader, relativeRoot);
+			final List<Resource> result = new ArrayList<>();
+			for (URL directoryUrl : directoryUrls) {
+				final List<Resource> partition = partitions.get(getDirectoryKey(directoryUrl));
+				if (partition == null) {
+					// directory is empty or its location doesn't match the scanned roots - let the caller scan it
+					return null;
+				}
+				result.addAll(partition);
+			}
+			return result.toArray(new Resource[0]);
+		} catch (IOException | IllegalStateException ex) {
+			log.warn("Cannot look up " + directory + " in classpath resource index: " + ex.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Returns number of classpath walks the index performed - single walk covers all roots registered before it.
+	 */
+	public int getScanCount() {
+		return scanCount.get();
+	}
+
+	/**
+	 * Drops all indexed resources so that the next lookup walks the classpath again. Call this method when the set
+	 * of classpath resources changes at runtime.
+	 */
+	public void invalidate() {
+		synchronized (pendingRoots) {
+			pendingRoots.addAll(index.keySet());
+			index.clear();
+		}
+	}
+
+	/**
+	 * Returns indexed resources of the root, when the root is not indexed yet, indexes it together with all other
+	 * registered roots.
+	 */
+	@NonNull
+	private Map<String, List<Resource>> getPartitions(@NonNull ClassLoader classLoader, @NonNull String resourceRoot) {
+		final Map<String, List<Resource>> partitions = index.get(resourceRoot);
+		if (partitions != null) {
+			return partitions;
+		}
+		synchronized (pendingRoots) {
+			final Map<String, List<Resource>> indexedPartitions = index.get(resourceRoot);
+			if (indexedPartitions != null) {
+				return indexedPartitions;
+			}
+			pendingRoots.add(resourceRoot);
+			final Map<String, Map<String, List<Resource>>> scannedRoots = scan(classLoader, pendingRoots);
+			index.putAll(scannedRoots);
+			pendingRoots.clear();
+			return scannedRoots.get(resourceRoot);
+		}
+	}
+
+	/**
+	 * Walks the resource roots in all classpath roots and partitions found resources by their directory. Jar files
+	 * are read only once for all resource roots they contain, directories are walked by the pattern resolver.
+	 */
+	@NonNull
+	private Map<String, Map<String, List<Resource>>> scan(@NonNull ClassLoader classLoader, @NonNull Set<String> resourceRoots) {
+		scanCount.incrementAndGet();
+		final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+		final Map<String, Map<String, List<Resource>>> result = new HashMap<>();
+		// jar root URL -> resource roots placed in it
+		final Map<String, Set<String>> jarRoots = new LinkedHashMap<>();
+		try {
+			for (String resourceRoot : resourceRoots) {
+				final Map<String, List<Resource>> partitions = new HashMap<>();
+				result.put(resourceRoot, partitions);
+				for (URL rootUrl : Collections.list(classLoader.getResources(resourceRoot))) {
+					final String rootLocation = rootUrl.toExternalForm();
+					if (ResourceUtils.isJarURL(rootUrl) && rootLocation.endsWith("!/" + resourceRoot)) {
+						jarRoots
+								.computeIfAbsent(rootLocation.substring(0, rootLocation.length() - resourceRoot.length()), key -> new LinkedHashSet<>())
+								.add(resourceRoot);
+					} else {
+						for (Resource resource : resolver.getResources(rootLocation + "**")) {
+							addToPartition(partitions, resource);
+						}
+					}
+				}
+			}
+			for (Map.Entry<String, Set<String>> entry : jarRoots.entrySet()) {
+				scanJar(entry.getKey(), entry.getValue(), result);
+			}
+		} catch (IOException ex) {
+			throw new IllegalStateException("Cannot scan classpath directories " + resourceRoots + ": " + ex.getMessage(), ex);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads entries of the jar file once and adds the files placed in any of the resource roots to their partitions.
+	 */
+	private static void scanJar(
+		@NonNull String jarRootLocation,
+		@NonNull Set<String> resourceRoots,
+		@NonNull Map<String, Map<String, List<Resource>>> result
+	) throws IOException {
+		final URLConnection connection = new URL(jarRootLocation).openConnection();
+		if (!(connection instanceof JarURLConnection)) {
+			throw new IOException("Cannot open jar file " + jarRootLocation);
+		}
+		final JarURLConnection jarConnection = (JarURLConnection) connection;
+		ResourceUtils.useCachesIfNecessary(jarConnection);
+		final JarFile jarFile = jarConnection.getJarFile();
+		try {
+			final Enumeration<JarEntry> entries = jarFile.entries();
+			while (entries.hasMoreElements()) {
+				final JarEntry entry = entries.nextElement();
+				// directory entries of the jar files are not listed by the pattern resolver either
+				if (!entry.isDirectory()) {
+					for (String resourceRoot : resourceRoots) {
+						if (entry.getName().startsWith(resourceRoot)) {
+							addToPartition(result.get(resourceRoot), new UrlResource(jarRootLocation + entry.getName()));
+						}
+					}
+				}
+			}
+		} finally {
+			if (!jarConnection.getUseCaches()) {
+				jarFile.close();
+			}
+		}
+	}
+
+	/**
+	 * Adds the resource to the partition of the directory it is placed in.
+	 */
+	private static void addToPartition(@NonNull Map<String, List<Resource>> partitions, @NonNull Resource resource) throws IOException {
+		final String location = getLocationKey(resource.getURL());
+		final int separator = location.lastIndexOf('/');
+		if (separator > 0 && !location.endsWith("/")) {
+			partitions.computeIfAbsent(location.substring(0, separator), key -> new ArrayList<>()).add(resource);
+		}
+	}
+
+	/**
+	 * Returns resource root relative to the classpath root or null when the location cannot be served by the index.
+	 */
+	@Nullable
+	private static String getRelativeRoot(@NonNull String resourceRoot) {
+		final String prefix;
+		if (resourceRoot.startsWith(CLASSPATH_ALL_URL_PREFIX)) {
+			prefix = CLASSPATH_ALL_URL_PREFIX;
+		} else if (resourceRoot.startsWith(CLASSPATH_URL_PREFIX)) {
+			prefix = CLASSPATH_URL_PREFIX;
+		} else {
+			return null;
+		}
+		final String relativeRoot = toRelativePath(resourceRoot.substring(prefix.length()));
+		return relativeRoot.isEmpty() || !relativeRoot.endsWith("/") || containsWildcard(relativeRoot) ? null : relativeRoot;
+	}
+
+	/**
+	 * Returns decoded location of the URL so that URLs returned by the class loader can be matched with the URLs
+	 * of the scanned resources.
+	 */
+	@NonNull
+	private static String getLocationKey(@NonNull URL url) throws IOException {
+		if (ResourceUtils.isFileURL(url)) {
+			return StringUtils.cleanPath(ResourceUtils.getFile(url).getAbsolutePath());
+		} else {
+			return StringUtils.uriDecode(url.toExternalForm(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Returns location key of the directory URL without trailing slash.
+	 */
+	@NonNull
+	private static String getDirectoryKey(@NonNull URL url) throws IOException {
+		final String location = getLocationKey(url);
+		return location.endsWith("/") ? location.substring(0, location.length() - 1) : location;
+	}
+
+	@NonNull
+	private static String toRelativePath(@NonNull String path) {
+		return path.startsWith("/") ? path.substring(1) : path;
+	}
+
+	private static boolean containsWildcard(@NonNull String path) {
+		return path.indexOf('*') >= 0 || path.indexOf('?') >= 0 || path.indexOf('{') >= 0;
+	}
+
+}
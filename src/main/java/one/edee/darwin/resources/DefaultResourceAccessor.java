@@ -1,6 +1,10 @@
 package one.edee.darwin.resources;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.extern.apachecommons.CommonsLog;
 import one.edee.darwin.model.Platform;
 import one.edee.darwin.model.ResourceVersionComparator;
@@ -11,13 +15,21 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.util.Assert;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Default implementation of {@link ResourceAccessor}.
@@ -37,9 +49,27 @@ public class DefaultResourceAccessor implements ResourceLoaderAware, ResourceAcc
 	private static final char DASH_CHAR = '-';
 	private static final char STAR_CHAR = '*';
 	private static final char EXCLAMATION_CHAR = '!';
+	/**
+	 * Char used for positions outside the content.
+	 */
+	private static final char OUTSIDE_CHAR = '-';
 	protected ResourceLoader resourceLoader;
 	protected String encoding = "UTF-8";
 	protected String resourcePath = "classpath:/META-INF/darwin/sql/";
+	/**
+	 * Patches stored in the file system that are at least this large (in bytes) are memory mapped when they're streamed.
+	 */
+	protected long memoryMappingThreshold = 8 * 1024 * 1024;
+	/**
+	 * Sorted resource lists already resolved for the normalized path (base path including platform folder).
+	 */
+	@Getter(AccessLevel.NONE) @EqualsAndHashCode.Exclude @ToString.Exclude
+	private final Map<String, Resource[]> resourceListCache = new ConcurrentHashMap<>();
+	/**
+	 * Precompiled bundles (see {@link PatchBundle}) looked up for the normalized path including platform folder.
+	 */
+	@Getter(AccessLevel.NONE) @EqualsAndHashCode.Exclude @ToString.Exclude
+	private final Map<String, Optional<PatchBundle>> bundleCache = new ConcurrentHashMap<>();
 
 	/**
 	 * Constructor.
@@ -57,6 +87,10 @@ public class DefaultResourceAccessor implements ResourceLoaderAware, ResourceAcc
 		this.resourceLoader = resourceLoader;
 		this.encoding = encoding;
 		this.resourcePath = resourcePath;
+		if (resourceLoader != null && resourcePath != null) {
+			//lets the shared index walk the classpath once for all accessors created before the first lookup
+			ClasspathResourceIndex.getInstance(resourceLoader.getClassLoader()).register(normalizePath(resourcePath, "", true));
+		}
 	}
 
 	/**
@@ -67,38 +101,183 @@ public class DefaultResourceAccessor implements ResourceLoaderAware, ResourceAcc
 	@Override
 	public Resource[] getSortedResourceList(Platform platform) {
 		final String normalizedPath = normalizePath(this.resourcePath, platform.getFolderName(), true);
+		final PatchBundle bundle = getBundle(normalizedPath);
+		if (bundle != null) {
+			//bundle already contains sorted list of patches - no need to scan the classpath
+			return resourceListCache.computeIfAbsent(
+					normalizedPath,
+					path -> bundle.getFileNames()
+							.stream()
+							.map(fileName -> resourceLoader.getResource(path + fileName))
+							.toArray(Resource[]::new)
+			).clone();
+		}
 		final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(resourceLoader);
 		return getResources(normalizedPath, resolver);
 	}
 
+	/**
+	 * Sets resource loader and drops resource lists resolved by the previous one.
+	 */
+	@Override
+	public void setResourceLoader(ResourceLoader resourceLoader) {
+		this.resourceLoader = resourceLoader;
+		clearResolvedResources();
+	}
+
+	/**
+	 * Drops all resolved resource lists so that the next call of {@link #getSortedResourceList(Platform)} scans
+	 * the resource path again. Call this method when the set of patches changes at runtime. The shared
+	 * {@link ClasspathResourceIndex} is invalidated as well.
+	 */
+	public void invalidateCache() {
+		clearResolvedResources();
+		ClasspathResourceIndex.getInstance(resourceLoader == null ? null : resourceLoader.getClassLoader()).invalidate();
+	}
+
+	/**
+	 * Drops resource lists and bundles resolved by this accessor.
+	 */
+	private void clearResolvedResources() {
+		resourceListCache.clear();
+		bundleCache.clear();
+	}
+
 	/**
 	 * Returns tokenized SQL statements in list.
 	 */
 	@Override
 	public List<String> getTokenizedSQLScriptContentFromResource(String resourcePath) {
+		final List<String> precompiledStatements = getPrecompiledStatements(resourcePath);
+		if (precompiledStatements != null) {
+			return precompiledStatements;
+		}
 		final String content = getTextContentFromResource(resourcePath);
 		return tokenizeSQLScriptContent(content);
 	}
 
+	/**
+	 * Reads the resource by {@link SqlStatementReader} and passes statements to the consumer as soon as they are
+	 * parsed, so that the whole script is never held in memory. Falls back to {@link #getTokenizedSQLScriptContentFromResource(String)}
+	 * when the resource cannot be found in the resource path or when streaming is not supported.
+	 */
+	@Override
+	public void processTokenizedSQLScriptContentFromResource(String resourcePath, Consumer<String> statementConsumer) {
+		final List<String> precompiledStatements = getPrecompiledStatements(resourcePath);
+		if (precompiledStatements != null) {
+			precompiledStatements.forEach(statementConsumer);
+			return;
+		}
+		final String normalizedPath = getNormalizedResourcePath(resourcePath);
+		final Resource resource = isStreamingSupported() ? resourceLoader.getResource(normalizedPath) : null;
+		if (resource == null || !resource.exists()) {
+			ResourceAccessor.super.processTokenizedSQLScriptContentFromResource(resourcePath, statementConsumer);
+			return;
+		}
+		try (final SqlStatementReader reader = new SqlStatementReader(openReader(resource))) {
+			String statement;
+			while ((statement = reader.nextStatement()) != null) {
+				statementConsumer.accept(statement);
+			}
+		} catch(IOException ex) {
+			final String msg = "Unexpectedly cannot read resource: " + normalizedPath;
+			log.fatal(msg, ex);
+			throw new RuntimeException(msg, ex);
+		}
+	}
+
 	/**
 	 * Returns unparsed text content of specified resource.
 	 */
 	@Override
 	public String getTextContentFromResource(String resourcePath) {
-		String normalizedPath = normalizePath(this.resourcePath, resourcePath, false);
-		//base path may contain fe: classpath*:/directory ... so when looking up for specific resource, asterisk must be removed
-		normalizedPath = normalizedPath.replaceAll("\\*", "");
-
+		final String normalizedPath = getNormalizedResourcePath(resourcePath);
 		final Resource resource = resourceLoader.getResource(normalizedPath);
 		return readResource(resourcePath, normalizedPath, resource);
 	}
 
 	/**
-	 * Tokenizes content by specified delimiter and puts it into list.
+	 * Returns true if statements may be parsed directly from the resource contents while they are read.
+	 * Accessors that modify contents of the resources at runtime must return false.
+	 */
+	protected boolean isStreamingSupported() {
+		return true;
+	}
+
+	/**
+	 * Opens reader of the resource contents in configured encoding. Compressed resources are decompressed on the fly,
+	 * large files are memory mapped and decoded incrementally by {@link MappedFileReader}.
+	 */
+	protected Reader openReader(Resource resource) throws IOException {
+		final PatchCompression compression = PatchCompression.fromFileName(String.valueOf(resource.getFilename()));
+		if (compression != PatchCompression.NONE) {
+			return new InputStreamReader(compression.decompress(resource.getInputStream()), Charset.forName(encoding));
+		}
+		if (resource.isFile()) {
+			final File file = resource.getFile();
+			if (file.length() >= memoryMappingThreshold) {
+				return new MappedFileReader(file.toPath(), Charset.forName(encoding));
+			}
+		}
+		return new InputStreamReader(resource.getInputStream(), Charset.forName(encoding));
+	}
+
+	/**
+	 * Returns true if statements tokenized at build time may be used instead of tokenizing resource contents.
+	 * Accessors that modify contents of the resources at runtime must return false.
+	 */
+	protected boolean isPrecompiledStatementSupported() {
+		return true;
+	}
+
+	/**
+	 * Returns statements of the resource from the precompiled bundle or null when there is no bundle for it.
+	 */
+	protected List<String> getPrecompiledStatements(String resourcePath) {
+		final int separatorIndex = resourcePath.lastIndexOf(SLASH_CHAR);
+		if (!isPrecompiledStatementSupported() || separatorIndex <= 0) {
+			return null;
+		}
+		final PatchBundle bundle = getBundle(normalizePath(this.resourcePath, resourcePath.substring(0, separatorIndex), true));
+		final PatchBundle.BundledPatch patch = bundle == null ? null : bundle.getPatch(resourcePath.substring(separatorIndex + 1));
+		if (patch == null || patch.getStatements() == null) {
+			return null;
+		}
+		return patch.getStatements();
+	}
+
+	/**
+	 * Returns precompiled bundle in the folder or null if there is none. Bundles are not used for `classpath*:` paths
+	 * because patches of such folder may be spread over multiple jars.
+	 */
+	protected PatchBundle getBundle(String normalizedPath) {
+		if (normalizedPath.startsWith("classpath*:")) {
+			return null;
+		}
+		return bundleCache.computeIfAbsent(
+				normalizedPath,
+				path -> {
+					final Resource resource = resourceLoader.getResource(path + PatchBundle.BUNDLE_FILE);
+					if (!resource.exists()) {
+						return Optional.empty();
+					}
+					try (final InputStream is = resource.getInputStream()) {
+						return Optional.of(PatchBundle.read(is));
+					} catch (IOException | RuntimeException ex) {
+						log.warn("Cannot read patch bundle " + path + PatchBundle.BUNDLE_FILE + " - patches will be scanned: " + ex.getMessage());
+						return Optional.empty();
+					}
+				}
+		).orElse(null);
+	}
+
+	/**
+	 * Tokenizes content by specified delimiter and puts it into list. Statements are sliced directly from the content,
+	 * buffer is used only for statements containing comments or escaped semicolons.
 	 */
 	protected List<String> tokenizeSQLScriptContent(String content) {
 		Assert.notNull(content, "SQL content is NULL!");
-		final List<String> result = new LinkedList<String>();
+		final List<String> result = new ArrayList<>();
 		final int contentLength = content.length();
 
 		boolean inString = false;
@@ -106,54 +285,86 @@ public class DefaultResourceAccessor implements ResourceLoaderAware, ResourceAcc
 		boolean inComment = false;
 		boolean lineComment = false;
 		final StringBuilder buffer = new StringBuilder();
+		//start of the part of the statement that has not been copied to the buffer yet
+		int segmentStart = 0;
 
-		for(int i = 0; i < contentLength; i++) {
-			char currentChar = content.charAt(i);
+		int i = 0;
+		while(i < contentLength) {
+			final char currentChar = content.charAt(i);
+			final char nextChar = i + 1 < contentLength ? content.charAt(i + 1) : OUTSIDE_CHAR;
 
-			if(!inString && isLineComment(content, i, currentChar)) {
+			if(!inString && (currentChar == HASH_CHAR || (currentChar == DASH_CHAR && nextChar == DASH_CHAR))) {
+				if(!inComment) {
+					buffer.append(content, segmentStart, i);
+				}
 				lineComment = true;
 				inComment = true;
-				i++;
+				i += 2;
 			} else if(currentChar == '\n' && lineComment) {
 				lineComment = false;
 				inComment = false;
-			} else if(!inString && isOpeningBlockComment(content, i, currentChar)) {
-				inComment = true;
 				i++;
-			} else if(inComment && !lineComment &&
-					isClosingBlockComment(content, i, currentChar)) {
+				segmentStart = i;
+			} else if(!inString && currentChar == SLASH_CHAR && nextChar == STAR_CHAR &&
+					(i + 2 < contentLength ? content.charAt(i + 2) : OUTSIDE_CHAR) != EXCLAMATION_CHAR) {
+				if(!inComment) {
+					buffer.append(content, segmentStart, i);
+				}
+				inComment = true;
+				i += 2;
+			} else if(inComment && !lineComment && currentChar == STAR_CHAR && nextChar == SLASH_CHAR) {
 				inComment = false;
-				i++;
+				i += 2;
+				segmentStart = i;
 			} else if(!inComment &&
-					(isStringDelimiter(content, i, stringStartIndex, currentChar, SINGLE_APOSTROPHE) ||
-							isStringDelimiter(content, i, stringStartIndex, currentChar, DOUBLE_APOSTROPHE))) {
+					(isStringDelimiter(content, i, stringStartIndex, currentChar, nextChar, SINGLE_APOSTROPHE) ||
+							isStringDelimiter(content, i, stringStartIndex, currentChar, nextChar, DOUBLE_APOSTROPHE))) {
 				inString = !inString;
 				stringStartIndex = inString ? i : -1;
-				buffer.append(currentChar);
+				i++;
 			} else if(currentChar == SEMICOLON && !inString && !inComment) {
-				if(isLineDelimiter(content, i, currentChar)) {
-					addQuery(result, buffer);
-					buffer.setLength(0);
-				} else {
-					buffer.append(currentChar);
+				if(nextChar != SEMICOLON) {
+					addQuery(result, buffer, content, segmentStart, i);
 					i++;
+				} else {
+					//escaped semicolon - only one of them is part of the statement
+					buffer.append(content, segmentStart, i + 1);
+					i += 2;
 				}
-			} else if(!inComment) {
-				buffer.append(currentChar);
+				segmentStart = i;
+			} else {
+				i++;
 			}
 		}
-		addQuery(result, buffer);
+		addQuery(result, buffer, content, segmentStart, inComment ? segmentStart : contentLength);
 		return result;
 	}
 
 	/**
-	 * Automatically finds all resources on path.
+	 * Automatically finds all resources on path. Resolved and sorted list is cached until {@link #invalidateCache()}
+	 * is called, each call returns its own copy of the array.
 	 */
 	protected Resource[] getResources(String normalizedPath, PathMatchingResourcePatternResolver resolver) {
+		final Resource[] resources = resourceListCache.computeIfAbsent(
+				normalizedPath, path -> resolveResources(path, resolver)
+		);
+		return resources.clone();
+	}
+
+	/**
+	 * Scans the path for all resources and sorts them by their versions. Classpath locations are looked up
+	 * in the {@link ClasspathResourceIndex} shared by all accessors, so that the classpath is walked only once
+	 * for all accessors registered before the lookup.
+	 */
+	private Resource[] resolveResources(String normalizedPath, PathMatchingResourcePatternResolver resolver) {
 		Resource[] resources = null;
 		try {
-			resources = resolver.getResources(normalizedPath + "*");
-			Arrays.sort(resources, new ResourceVersionComparator());
+			resources = ClasspathResourceIndex.getInstance(resolver.getClassLoader())
+					.getResources(normalizePath(this.resourcePath, "", true), normalizedPath);
+			if (resources == null) {
+				resources = resolver.getResources(normalizedPath + "*");
+			}
+			new ResourceVersionComparator().sort(resources);
 		} catch(IOException ex) {
 			resources = tryToFindResourceListInDescriptor(resolver, normalizedPath, resources);
 
@@ -172,7 +383,7 @@ public class DefaultResourceAccessor implements ResourceLoaderAware, ResourceAcc
 	 */
 	protected String readResource(String resourceName, String normalizedPath, Resource resource) {
 		if(resource.exists()) {
-			try (final InputStream is = resource.getInputStream()) {
+			try (final InputStream is = PatchCompression.fromFileName(normalizedPath).decompress(resource.getInputStream())) {
 				final String content = toString(is, Charset.forName(encoding)).trim();
 				if(content.endsWith(";")) {
 					return content.substring(0, content.length() - 1);
@@ -231,6 +442,15 @@ public class DefaultResourceAccessor implements ResourceLoaderAware, ResourceAcc
 		return resources;
 	}
 
+	/**
+	 * Returns path of the single resource in the resource path.
+	 */
+	protected String getNormalizedResourcePath(String resourcePath) {
+		final String normalizedPath = normalizePath(this.resourcePath, resourcePath, false);
+		//base path may contain fe: classpath*:/directory ... so when looking up for specific resource, asterisk must be removed
+		return normalizedPath.replaceAll("\\*", "");
+	}
+
 	/**
 	 * Normalizes path.
 	 */
@@ -245,44 +465,40 @@ public class DefaultResourceAccessor implements ResourceLoaderAware, ResourceAcc
 		return directory && !finalName.endsWith("/") ? finalName + "/" : finalName;
 	}
 
-	private boolean isLineComment(String content, int currentPos, char currentChar) {
-		char nextChar = currentPos + 1 < content.length() ? content.charAt(currentPos + 1) : '-';
-		return currentChar == HASH_CHAR || (currentChar == DASH_CHAR && nextChar == DASH_CHAR);
-	}
-
-	private boolean isOpeningBlockComment(String content, int currentPos, char currentChar) {
-		char nextChar = currentPos + 1 < content.length() ? content.charAt(currentPos + 1) : '-';
-		char nextNextChar = currentPos + 2 < content.length() ? content.charAt(currentPos + 2) : '-';
-		return currentChar == SLASH_CHAR && nextChar == STAR_CHAR && nextNextChar != EXCLAMATION_CHAR;
-	}
-
-	private boolean isClosingBlockComment(String content, int currentPos, char currentChar) {
-		char nextChar = currentPos + 1 < content.length() ? content.charAt(currentPos + 1) : '-';
-		return currentChar == STAR_CHAR && nextChar == SLASH_CHAR;
-	}
-
-	private void addQuery(List<String> result, StringBuilder buffer) {
-		String query = buffer.toString().trim();
+	/**
+	 * Adds trimmed statement composed of the buffer and the part of the content between start and end index.
+	 */
+	private void addQuery(List<String> result, StringBuilder buffer, String content, int start, int end) {
+		final String query;
+		if(buffer.length() == 0) {
+			while(start < end && content.charAt(start) <= ' ') {
+				start++;
+			}
+			while(end > start && content.charAt(end - 1) <= ' ') {
+				end--;
+			}
+			query = content.substring(start, end);
+		} else {
+			buffer.append(content, start, end);
+			query = buffer.toString().trim();
+			buffer.setLength(0);
+		}
 		if(query.length() > 0 && !(query.length() == 1 && query.charAt(0) == SEMICOLON)) {
 			result.add(query);
 		}
 	}
 
 	private boolean isStringDelimiter(String content, int currentPos, int stringStartIndex, char currentChar,
-									  char delimiterChar) {
-		char prevChar = currentPos - 1 >= 0 ? content.charAt(currentPos - 1) : '-';
-		char nextChar = currentPos + 1 < content.length() ? content.charAt(currentPos + 1) : '-';
-		boolean isDelimiter = currentChar == delimiterChar;
-		boolean isNotEscaped = prevChar != ESCAPE_CHAR;
-		boolean isNotDuplicatedAndInsideString = (prevChar != delimiterChar || stringStartIndex == currentPos - 1) &&
+									  char nextChar, char delimiterChar) {
+		if(currentChar != delimiterChar) {
+			return false;
+		}
+		final char prevChar = currentPos - 1 >= 0 ? content.charAt(currentPos - 1) : OUTSIDE_CHAR;
+		final boolean isNotEscaped = prevChar != ESCAPE_CHAR;
+		final boolean isNotDuplicatedAndInsideString = (prevChar != delimiterChar || stringStartIndex == currentPos - 1) &&
 				nextChar != delimiterChar;
-		boolean isTriplecatedInsideString = prevChar == delimiterChar && nextChar == delimiterChar;
-		return isDelimiter && isNotEscaped && (isNotDuplicatedAndInsideString || isTriplecatedInsideString);
-	}
-
-	private boolean isLineDelimiter(String content, int currentPos, char currentChar) {
-		char nextChar = currentPos + 1 < content.length() ? content.charAt(currentPos + 1) : '-';
-		return currentChar == DefaultResourceAccessor.SEMICOLON && nextChar != DefaultResourceAccessor.SEMICOLON;
+		final boolean isTriplecatedInsideString = prevChar == delimiterChar && nextChar == delimiterChar;
+		return isNotEscaped && (isNotDuplicatedAndInsideString || isTriplecatedInsideString);
 	}
 
 }
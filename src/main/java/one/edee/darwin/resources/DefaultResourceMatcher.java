@@ -6,7 +6,9 @@ import one.edee.darwin.model.version.VersionDescriptor;
 import org.springframework.core.io.Resource;
 import org.springframework.lang.Nullable;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -18,59 +20,73 @@ import java.util.regex.Pattern;
 public class DefaultResourceMatcher implements ResourceMatcher {
 	private static final Pattern PLATFORM_AND_NAME_PATTERN = Pattern.compile("(.*)/(.*)");
 
-	// Regex patterns for each patch type
-	private static final Pattern CREATE_PATTERN = Pattern.compile("^create\\.sql$", Pattern.CASE_INSENSITIVE);
+	/**
+	 * Maximal number of memoized classifications - the cache is dropped when the limit is reached.
+	 */
+	private static final int MAX_CACHED_DESCRIPTORS = 4096;
+	// Single pattern for all patch types - patches may be compressed (see PatchCompression)
 	// Version pattern: must start with alphanumeric, no consecutive dots/hyphens/underscores, no trailing dots/hyphens/underscores
-	private static final Pattern EVOLVE_PATTERN = Pattern.compile("^patch_([a-zA-Z0-9]+(?:[._-][a-zA-Z0-9]+)*)\\.sql$", Pattern.CASE_INSENSITIVE);
-	private static final Pattern GUESS_PATTERN = Pattern.compile("^guess_([a-zA-Z0-9]+(?:[._-][a-zA-Z0-9]+)*)\\.sql$", Pattern.CASE_INSENSITIVE);
+	private static final Pattern PATCH_PATTERN = Pattern.compile(
+			"^(?:(create)|(patch|guess)_([a-zA-Z0-9]+(?:[._-][a-zA-Z0-9]+)*))\\.sql(?:\\.gz|\\.zst)?$",
+			Pattern.CASE_INSENSITIVE
+	);
+	private final Map<String, ResourceDescriptor> descriptors = new ConcurrentHashMap<>();
 
 	@Override
 	public boolean isResourceAcceptable(@NonNull PatchType type, @NonNull String patchName) {
-		// Handle edge cases that tests expect to return false
-		if (patchName.isEmpty()) {
-			return false;
-		}
-
-		switch(type) {
-			case CREATE: return matchesPattern(CREATE_PATTERN, patchName);
-			case EVOLVE: return matchesPatternWithValidVersion(EVOLVE_PATTERN, patchName);
-			case GUESS: return matchesPatternWithValidVersion(GUESS_PATTERN, patchName);
-		}
+		return describe(patchName).getPatchType() == type;
+	}
 
-		return false;
+	@Nullable
+	@Override
+	public PatchType getPatchType(@NonNull String patchName) {
+		return describe(patchName).getPatchType();
 	}
 
 	/**
-	 * Helper method to check if a patch name matches a given pattern.
+	 * Classifies the patch by its file name. Name is parsed and its version validated only once, the result
+	 * is memoized for all subsequent calls.
 	 */
-	private boolean matchesPattern(@NonNull Pattern pattern, @NonNull String patchName) {
-		return pattern.matcher(patchName).matches();
+	@NonNull
+	public ResourceDescriptor describe(@NonNull String patchName) {
+		final ResourceDescriptor descriptor = descriptors.get(patchName);
+		if (descriptor != null) {
+			return descriptor;
+		}
+		final ResourceDescriptor newDescriptor = classify(patchName);
+		if (descriptors.size() >= MAX_CACHED_DESCRIPTORS) {
+			descriptors.clear();
+		}
+		descriptors.put(patchName, newDescriptor);
+		return newDescriptor;
 	}
 
 	/**
-	 * Helper method to check if a patch name matches a pattern and contains a valid version.
-	 * The version is validated by attempting to create a VersionDescriptor from it.
+	 * Parses the file name with single pattern match.
 	 */
-	private boolean matchesPatternWithValidVersion(@NonNull Pattern pattern, @NonNull String patchName) {
-		final Matcher matcher = pattern.matcher(patchName);
+	@NonNull
+	private static ResourceDescriptor classify(@NonNull String patchName) {
+		final Matcher matcher = PATCH_PATTERN.matcher(patchName);
 		if (matcher.matches()) {
-			final String version = matcher.group(1);
+			if (matcher.group(1) != null) {
+				return new ResourceDescriptor(patchName, PatchType.CREATE, null);
+			}
+			final PatchType patchType = "patch".equalsIgnoreCase(matcher.group(2)) ? PatchType.EVOLVE : PatchType.GUESS;
 			try {
 				// Validate version by attempting to create VersionDescriptor
-				new VersionDescriptor(version);
-				return true;
+				return new ResourceDescriptor(patchName, patchType, new VersionDescriptor(matcher.group(3)));
 			} catch (Exception e) {
 				// Invalid version format
-				return false;
+				return new ResourceDescriptor(patchName, null, null);
 			}
 		}
-		return false;
+		return new ResourceDescriptor(patchName, null, null);
 	}
 
 	@Nullable
 	@Override
 	public VersionDescriptor getVersionFromResource(@NonNull Resource resource) {
-		final String fileName = Objects.requireNonNull(resource.getFilename()).toLowerCase();
+		final String fileName = PatchCompression.stripSuffix(Objects.requireNonNull(resource.getFilename()).toLowerCase());
 		int startIndex = fileName.lastIndexOf('_');
 		if (startIndex > -1) {
 			int index = fileName.lastIndexOf('.');
@@ -85,21 +101,13 @@ public class DefaultResourceMatcher implements ResourceMatcher {
 	@Nullable
 	@Override
 	public VersionDescriptor getVersionFromPatch(@NonNull Patch patch) {
-		final Matcher evolvePattern = EVOLVE_PATTERN.matcher(patch.getPatchName());
-		if (evolvePattern.matches()) {
-			return new VersionDescriptor(evolvePattern.group(1));
-		}
-		final Matcher guessPattern = GUESS_PATTERN.matcher(patch.getPatchName());
-		if (guessPattern.matches()) {
-			return new VersionDescriptor(guessPattern.group(1));
-		}
-		return null;
+		return describe(patch.getPatchName()).getVersion();
 	}
 
 	@NonNull
 	@Override
 	public String getPatchNameFromResource(@NonNull Resource resource) {
-		return Objects.requireNonNull(resource.getFilename());
+		return PatchCompression.stripSuffix(Objects.requireNonNull(resource.getFilename()));
 	}
 
 	@NonNull
@@ -109,7 +117,7 @@ public class DefaultResourceMatcher implements ResourceMatcher {
 		if (matcher.find()) {
 			return new String[] {
 				matcher.group(1),
-				matcher.group(2)
+				PatchCompression.stripSuffix(matcher.group(2))
 			};
 		}
 		throw new IllegalArgumentException("The resource path does not match the expected pattern: " + resourcePath);
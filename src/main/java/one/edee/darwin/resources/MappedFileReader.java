@@ -0,0 +1,109 @@
+package one.edee.darwin.resources;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader of the file that maps the file into memory window by window and decodes it incrementally, so that reading
+ * large patches requires neither copying the whole file to the heap nor allocating large byte arrays. Malformed
+ * input is replaced the same way {@link java.io.InputStreamReader} does it.
+ *
+ * Mapped windows are released by the garbage collector once they are no longer referenced.
+ */
+public class MappedFileReader extends Reader {
+	private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+	private static final int CHAR_BUFFER_SIZE = 8192;
+	private final FileChannel channel;
+	private final long size;
+	private final int windowSize;
+	private final CharsetDecoder decoder;
+	private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+	private MappedByteBuffer window;
+	private long windowOffset;
+	private boolean flushed;
+
+	public MappedFileReader(@NonNull Path path, @NonNull Charset charset) throws IOException {
+		this(path, charset, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * @param windowSize maximal number of bytes mapped at once
+	 */
+	public MappedFileReader(@NonNull Path path, @NonNull Charset charset, int windowSize) throws IOException {
+		if (windowSize < 16) {
+			throw new IllegalArgumentException("Window size must be at least 16 bytes!");
+		}
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.size = channel.size();
+		this.windowSize = windowSize;
+		this.decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.chars.flip();
+	}
+
+	@Override
+	public int read(@NonNull char[] cbuf, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!chars.hasRemaining() && !fill()) {
+			return -1;
+		}
+		final int count = Math.min(len, chars.remaining());
+		chars.get(cbuf, off, count);
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		window = null;
+		channel.close();
+	}
+
+	/**
+	 * Decodes next chunk of characters into the char buffer.
+	 *
+	 * @return false when the end of the file has been reached
+	 */
+	private boolean fill() throws IOException {
+		chars.clear();
+		while (chars.position() == 0 && !flushed) {
+			if (window == null) {
+				map(0);
+			}
+			final boolean lastWindow = windowOffset + window.limit() >= size;
+			final CoderResult result = decoder.decode(window, chars, lastWindow);
+			if (result.isError()) {
+				result.throwException();
+			}
+			if (result.isUnderflow()) {
+				if (!lastWindow) {
+					// bytes of the incomplete character remaining at the end of the window are mapped again
+					map(windowOffset + window.position());
+				} else if (decoder.flush(chars).isUnderflow()) {
+					flushed = true;
+				}
+			}
+		}
+		chars.flip();
+		return chars.hasRemaining();
+	}
+
+	private void map(long offset) throws IOException {
+		window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, size - offset));
+		windowOffset = offset;
+	}
+
+}
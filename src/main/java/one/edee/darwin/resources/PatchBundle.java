@@ -0,0 +1,168 @@
+package one.edee.darwin.resources;
+
+import lombok.Data;
+import lombok.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Precompiled index of the patches of single platform folder produced by {@link PatchBundleCompiler} at build time.
+ * Bundle contains patch file names already sorted by their versions and for each SQL script its tokenized statements.
+ * When present, {@link DefaultResourceAccessor} uses the bundle instead of scanning the classpath and tokenizing
+ * the scripts.
+ *
+ * Bundle is stored as UTF-8 text file {@link #BUNDLE_FILE} in the platform folder. Each patch starts with
+ * tab separated line `patch, file name, statement count` followed by tab separated lines `statement, escaped statement`.
+ */
+public class PatchBundle {
+	public static final String BUNDLE_FILE = "darwin-bundle.idx";
+	private static final String HEADER = "# Darwin patch bundle v2";
+	private static final String PATCH_PREFIX = "patch";
+	private static final String STATEMENT_PREFIX = "statement";
+	private static final String NO_STATEMENTS = "-";
+	private final Map<String, BundledPatch> patches = new LinkedHashMap<>();
+
+	/**
+	 * Registers patch - patches must be registered in the order of their versions.
+	 */
+	public void addPatch(@NonNull BundledPatch patch) {
+		patches.put(patch.getFileName(), patch);
+	}
+
+	/**
+	 * Returns file names of all bundled patches sorted by their versions.
+	 */
+	@NonNull
+	public List<String> getFileNames() {
+		return new ArrayList<>(patches.keySet());
+	}
+
+	/**
+	 * Returns bundled patch by its file name or null if there is no such patch in the bundle.
+	 */
+	@Nullable
+	public BundledPatch getPatch(@NonNull String fileName) {
+		return patches.get(fileName);
+	}
+
+	/**
+	 * Writes bundle to the output stream.
+	 */
+	public void write(@NonNull OutputStream outputStream) throws IOException {
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		writer.write(HEADER);
+		writer.write('\n');
+		for (BundledPatch patch : patches.values()) {
+			final List<String> statements = patch.getStatements();
+			writer.write(PATCH_PREFIX + '\t' + patch.getFileName() + '\t' +
+					(statements == null ? NO_STATEMENTS : Integer.toString(statements.size())));
+			writer.write('\n');
+			if (statements != null) {
+				for (String statement : statements) {
+					writer.write(STATEMENT_PREFIX + '\t' + escape(statement));
+					writer.write('\n');
+				}
+			}
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Reads bundle from the input stream.
+	 *
+	 * @throws IllegalArgumentException when stream doesn't contain valid bundle
+	 */
+	@NonNull
+	public static PatchBundle read(@NonNull InputStream inputStream) throws IOException {
+		final PatchBundle bundle = new PatchBundle();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+		String line = reader.readLine();
+		if (!HEADER.equals(line)) {
+			throw new IllegalArgumentException("Unsupported Darwin patch bundle format: " + line);
+		}
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			final String[] patchParts = line.split("\t", -1);
+			if (patchParts.length != 3 || !PATCH_PREFIX.equals(patchParts[0])) {
+				throw new IllegalArgumentException("Invalid Darwin patch bundle line: " + line);
+			}
+			List<String> statements = null;
+			if (!NO_STATEMENTS.equals(patchParts[2])) {
+				final int count = Integer.parseInt(patchParts[2]);
+				statements = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) {
+					final String statementLine = reader.readLine();
+					final String[] statementParts = statementLine == null ? new String[0] : statementLine.split("\t", 2);
+					if (statementParts.length != 2 || !STATEMENT_PREFIX.equals(statementParts[0])) {
+						throw new IllegalArgumentException("Invalid Darwin patch bundle line: " + statementLine);
+					}
+					statements.add(unescape(statementParts[1]));
+				}
+			}
+			bundle.addPatch(
+					new BundledPatch(
+							patchParts[1],
+							statements == null ? null : Collections.unmodifiableList(statements)
+					)
+			);
+		}
+		return bundle;
+	}
+
+	@NonNull
+	private static String escape(@NonNull String text) {
+		final StringBuilder sb = new StringBuilder(text.length() + 16);
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			switch (c) {
+				case '\\': sb.append("\\\\"); break;
+				case '\n': sb.append("\\n"); break;
+				case '\r': sb.append("\\r"); break;
+				case '\t': sb.append("\\t"); break;
+				default: sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	@NonNull
+	private static String unescape(@NonNull String text) {
+		final StringBuilder sb = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			if (c == '\\' && i + 1 < text.length()) {
+				final char next = text.charAt(++i);
+				switch (next) {
+					case 'n': sb.append('\n'); break;
+					case 'r': sb.append('\r'); break;
+					case 't': sb.append('\t'); break;
+					default: sb.append(next);
+				}
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Single patch file of the bundle.
+	 */
+	@Data
+	public static class BundledPatch {
+		/**
+		 * File name of the patch in the platform folder.
+		 */
+		private final String fileName;
+		/**
+		 * Tokenized statements of the SQL script or null when the file is not SQL script.
+		 */
+		@Nullable private final List<String> statements;
+	}
+
+}
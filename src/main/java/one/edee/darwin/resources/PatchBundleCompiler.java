@@ -0,0 +1,136 @@
+package one.edee.darwin.resources;
+
+import lombok.NonNull;
+import lombok.extern.apachecommons.CommonsLog;
+import one.edee.darwin.model.Platform;
+import one.edee.darwin.model.ResourceVersionComparator;
+import one.edee.darwin.resources.PatchBundle.BundledPatch;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compiles patch folders to {@link PatchBundle bundles} at build time. For each platform sub folder of the passed
+ * patch folder it sorts patches by their versions, tokenizes SQL scripts by the same rules as
+ * {@link DefaultResourceAccessor} and writes {@link PatchBundle#BUNDLE_FILE} into the platform folder.
+ *
+ * Compiler is meant to be run by the build after resources were copied to the output directory, for example by
+ * `exec-maven-plugin` in the `process-classes` phase:
+ *
+ * ```
+ * java one.edee.darwin.resources.PatchBundleCompiler [--encoding=UTF-8] target/classes/META-INF/my-component/sql ...
+ * ```
+ *
+ * Bundles must not be used for scripts preprocessed at runtime (see {@link ScriptableResourceAccessor}).
+ */
+@CommonsLog
+public class PatchBundleCompiler {
+	private static final String ENCODING_ARGUMENT = "--encoding=";
+	private static final String DESCRIPTOR_FILE = "descriptor.txt";
+	private final String encoding;
+
+	public PatchBundleCompiler(@NonNull String encoding) {
+		this.encoding = encoding;
+	}
+
+	public static void main(String[] args) throws IOException {
+		String encoding = StandardCharsets.UTF_8.name();
+		final List<String> folders = new ArrayList<>(args.length);
+		for (String arg : args) {
+			if (arg.startsWith(ENCODING_ARGUMENT)) {
+				encoding = arg.substring(ENCODING_ARGUMENT.length());
+			} else {
+				folders.add(arg);
+			}
+		}
+		if (folders.isEmpty()) {
+			throw new IllegalArgumentException(
+					"Usage: PatchBundleCompiler [" + ENCODING_ARGUMENT + "UTF-8] patchFolder [patchFolder ...]"
+			);
+		}
+		final PatchBundleCompiler compiler = new PatchBundleCompiler(encoding);
+		for (String folder : folders) {
+			compiler.compile(new File(folder));
+		}
+	}
+
+	/**
+	 * Compiles all platform sub folders of the patch folder.
+	 *
+	 * @return number of bundles written
+	 */
+	public int compile(@NonNull File patchFolder) throws IOException {
+		if (!patchFolder.isDirectory()) {
+			throw new IllegalArgumentException("Patch folder " + patchFolder + " doesn't exist!");
+		}
+		int bundles = 0;
+		for (Platform platform : Platform.values()) {
+			final File platformFolder = new File(patchFolder, platform.getFolderName());
+			if (platformFolder.isDirectory()) {
+				final PatchBundle bundle = compile(patchFolder, platform);
+				try (final OutputStream os = new FileOutputStream(new File(platformFolder, PatchBundle.BUNDLE_FILE))) {
+					bundle.write(os);
+				}
+				bundles++;
+				if (log.isInfoEnabled()) {
+					log.info("Darwin patch bundle written for " + platformFolder + ".");
+				}
+			}
+		}
+		return bundles;
+	}
+
+	/**
+	 * Creates bundle for single platform folder of the patch folder.
+	 */
+	@NonNull
+	public PatchBundle compile(@NonNull File patchFolder, @NonNull Platform platform) {
+		final File platformFolder = new File(patchFolder, platform.getFolderName());
+		final File[] files = platformFolder.listFiles(
+				file -> file.isFile() &&
+						!PatchBundle.BUNDLE_FILE.equals(file.getName()) &&
+						!DESCRIPTOR_FILE.equals(file.getName())
+		);
+		//patches of the same version keep the name order of classpath scanning
+		final Resource[] resources = Arrays.stream(files == null ? new File[0] : files)
+				.sorted(Comparator.comparing(File::getName))
+				.map(FileSystemResource::new)
+				.toArray(Resource[]::new);
+		new ResourceVersionComparator().sort(resources);
+
+		final DefaultResourceAccessor accessor = new DefaultResourceAccessor(
+				new DefaultResourceLoader(), encoding, patchFolder.toURI().toString()
+		);
+		final PatchBundle bundle = new PatchBundle();
+		for (Resource resource : resources) {
+			//bundle refers to the resources, so it keeps compression suffix the patch name lacks
+			final String fileName = Objects.requireNonNull(resource.getFilename());
+			bundle.addPatch(
+					new BundledPatch(
+							fileName,
+							PatchCompression.stripSuffix(fileName).toLowerCase().endsWith(".sql") ?
+									tokenize(accessor, platform.getFolderName() + "/" + fileName) : null
+					)
+			);
+		}
+		return bundle;
+	}
+
+	@NonNull
+	private List<String> tokenize(@NonNull DefaultResourceAccessor accessor, @NonNull String resourcePath) {
+		final String content = accessor.getTextContentFromResource(resourcePath);
+		return accessor.tokenizeSQLScriptContent(content);
+	}
+
+}
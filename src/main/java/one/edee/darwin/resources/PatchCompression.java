@@ -0,0 +1,87 @@
+package one.edee.darwin.resources;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression of the patch resources recognized by the suffix of the file name - `patch_2.3.sql.gz` is treated
+ * the same way as `patch_2.3.sql` but its contents are decompressed on the fly while being read.
+ *
+ * Zstandard compression requires `com.github.luben:zstd-jni` library on the classpath.
+ */
+public enum PatchCompression {
+
+	NONE(""),
+	GZIP(".gz"),
+	ZSTD(".zst");
+
+	private static final String ZSTD_INPUT_STREAM = "com.github.luben.zstd.ZstdInputStream";
+	@Getter private final String suffix;
+
+	PatchCompression(String suffix) {
+		this.suffix = suffix;
+	}
+
+	/**
+	 * Returns compression of the file by its name.
+	 */
+	@NonNull
+	public static PatchCompression fromFileName(@NonNull String fileName) {
+		final String lowerCaseName = fileName.toLowerCase();
+		if (lowerCaseName.endsWith(GZIP.suffix)) {
+			return GZIP;
+		} else if (lowerCaseName.endsWith(ZSTD.suffix)) {
+			return ZSTD;
+		} else {
+			return NONE;
+		}
+	}
+
+	/**
+	 * Returns file name without compression suffix.
+	 */
+	@NonNull
+	public static String stripSuffix(@NonNull String fileName) {
+		return fileName.substring(0, fileName.length() - fromFileName(fileName).suffix.length());
+	}
+
+	/**
+	 * Wraps the stream with the decompressing one.
+	 */
+	@NonNull
+	public InputStream decompress(@NonNull InputStream inputStream) throws IOException {
+		switch (this) {
+			case GZIP: return new GZIPInputStream(inputStream, 64 * 1024);
+			case ZSTD: return createZstdInputStream(inputStream);
+			default: return inputStream;
+		}
+	}
+
+	private static InputStream createZstdInputStream(@NonNull InputStream inputStream) throws IOException {
+		final Constructor<?> constructor;
+		try {
+			constructor = Class.forName(ZSTD_INPUT_STREAM).getConstructor(InputStream.class);
+		} catch (ClassNotFoundException | NoSuchMethodException ex) {
+			throw new IllegalStateException(
+					"Patches compressed by Zstandard require com.github.luben:zstd-jni library on classpath!", ex
+			);
+		}
+		try {
+			return (InputStream) constructor.newInstance(inputStream);
+		} catch (InvocationTargetException ex) {
+			if (ex.getCause() instanceof IOException) {
+				throw (IOException) ex.getCause();
+			}
+			throw new IllegalStateException("Cannot open Zstandard stream: " + ex.getCause().getMessage(), ex.getCause());
+		} catch (InstantiationException | IllegalAccessException ex) {
+			throw new IllegalStateException("Cannot open Zstandard stream: " + ex.getMessage(), ex);
+		}
+	}
+
+}
@@ -0,0 +1,167 @@
+package one.edee.darwin.resources;
+
+import lombok.Data;
+import lombok.NonNull;
+import lombok.extern.apachecommons.CommonsLog;
+import one.edee.darwin.model.PreparedPatch;
+import one.edee.darwin.model.SqlCommandLedger;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prepares patches on single background thread while the previous patch is being executed. Each patch is read,
+ * rendered, tokenized and its statements are hashed in advance - database doesn't wait for the preparation and
+ * the preparation doesn't wait for the database. Prepared patches are passed through the bounded queue, so that
+ * only limited count of them is kept in memory.
+ *
+ * Patches must be taken in the order they were passed to the prefetcher, patches that are not taken (for example
+ * because guess script matched them) are skipped. Failure of the preparation is thrown when the patch is taken.
+ */
+@CommonsLog
+public class PatchPrefetcher implements AutoCloseable {
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+	private final BlockingQueue<Preparation> queue;
+	private final ExecutorService executor;
+	/**
+	 * Resource paths of the patches that were not taken yet.
+	 */
+	private final LinkedList<String> remainingPaths;
+
+	/**
+	 * Starts preparation of the patches.
+	 *
+	 * @param resourceAccessor accessor used for reading the patches
+	 * @param resourcePaths paths of the patch resources in the order they will be executed
+	 * @param queueSize maximal count of prepared patches waiting for execution
+	 */
+	public PatchPrefetcher(@NonNull ResourceAccessor resourceAccessor, @NonNull List<String> resourcePaths, int queueSize) {
+		if (queueSize <= 0) {
+			throw new IllegalArgumentException("Prefetch queue size must be positive, got " + queueSize + ".");
+		}
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+		this.remainingPaths = new LinkedList<>(resourcePaths);
+		this.executor = Executors.newSingleThreadExecutor(
+				runnable -> {
+					final Thread thread = new Thread(runnable, "darwin-patch-prefetcher-" + THREAD_COUNTER.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+		);
+		final List<String> paths = new ArrayList<>(resourcePaths);
+		this.executor.execute(() -> {
+			try {
+				for (String resourcePath : paths) {
+					final Preparation preparation = prepare(resourceAccessor, resourcePath);
+					queue.put(preparation);
+					if (preparation.getFailure() != null) {
+						return;
+					}
+				}
+			} catch (InterruptedException ignored) {
+				// prefetcher was closed
+				Thread.currentThread().interrupt();
+			}
+		});
+	}
+
+	/**
+	 * Returns prepared patch for the resource path. Blocks until the patch is prepared. Returns null if the patch
+	 * was not passed to the prefetcher or was skipped already and must be read by the caller.
+	 *
+	 * @param resourcePath path of the patch resource
+	 */
+	@Nullable
+	public PreparedPatch take(@NonNull String resourcePath) {
+		if (!remainingPaths.contains(resourcePath)) {
+			return null;
+		}
+		try {
+			while (true) {
+				final String expectedPath = remainingPaths.removeFirst();
+				final Preparation preparation = queue.take();
+				if (preparation.getFailure() != null) {
+					// nothing is prepared after the failure
+					remainingPaths.clear();
+					if (expectedPath.equals(resourcePath)) {
+						throw rethrow(preparation.getFailure());
+					}
+					return null;
+				} else if (expectedPath.equals(resourcePath)) {
+					return preparation.getPreparedPatch();
+				} else if (log.isDebugEnabled()) {
+					log.debug("Prepared patch " + expectedPath + " was not executed, skipping it.");
+				}
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for preparation of patch " + resourcePath + ".", ex);
+		}
+	}
+
+	/**
+	 * Stops the preparation of the remaining patches.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		queue.clear();
+	}
+
+	/**
+	 * Reads, renders, tokenizes and hashes the patch.
+	 */
+	@NonNull
+	private static Preparation prepare(@NonNull ResourceAccessor resourceAccessor, @NonNull String resourcePath) {
+		try {
+			final List<String> statements = new ArrayList<>();
+			final List<String> statementHashes = new ArrayList<>();
+			resourceAccessor.processTokenizedSQLScriptContentFromResource(resourcePath, statement -> {
+				statements.add(statement);
+				statementHashes.add(SqlCommandLedger.computeHash(statement));
+			});
+			return new Preparation(
+					new PreparedPatch(
+							resourcePath,
+							Collections.unmodifiableList(statements),
+							Collections.unmodifiableList(statementHashes)
+					),
+					null
+			);
+		} catch (Throwable ex) {
+			// errors must be passed to the caller as well, otherwise it would wait for the patch forever
+			return new Preparation(null, ex);
+		}
+	}
+
+	/**
+	 * Throws the failure of the preparation in the thread that takes the patch.
+	 */
+	@NonNull
+	private static RuntimeException rethrow(@NonNull Throwable failure) {
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		throw new IllegalStateException("Preparation of the patch failed: " + failure.getMessage(), failure);
+	}
+
+	/**
+	 * Result of the preparation of single patch.
+	 */
+	@Data
+	private static class Preparation {
+		@Nullable private final PreparedPatch preparedPatch;
+		@Nullable private final Throwable failure;
+	}
+
+}
@@ -4,6 +4,7 @@ import one.edee.darwin.model.Platform;
 import org.springframework.core.io.Resource;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface provides access to patch storage. Allows to detect patches and access their contents.
@@ -29,6 +30,18 @@ public interface ResourceAccessor {
 	 */
 	List<String> getTokenizedSQLScriptContentFromResource(String resourcePath);
 
+	/**
+	 * Parses SQL script to individual SQL commands and passes them to the consumer one by one as they are parsed.
+	 * Implementations may read the script lazily so that the first command is consumed before the rest of the script
+	 * is read.
+	 *
+	 * @param resourcePath name of patch which we want separated
+	 * @param statementConsumer consumer of the sql commands in the order they are present in patch
+	 */
+	default void processTokenizedSQLScriptContentFromResource(String resourcePath, Consumer<String> statementConsumer) {
+		getTokenizedSQLScriptContentFromResource(resourcePath).forEach(statementConsumer);
+	}
+
 	/**
 	 * Returns string contents of the resource by its name.
 	 *
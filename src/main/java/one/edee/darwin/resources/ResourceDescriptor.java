@@ -0,0 +1,27 @@
+package one.edee.darwin.resources;
+
+import lombok.Data;
+import lombok.NonNull;
+import one.edee.darwin.model.version.VersionDescriptor;
+import org.springframework.lang.Nullable;
+
+/**
+ * Immutable result of the classification of the patch file name by {@link DefaultResourceMatcher}. File name is
+ * parsed only once and all later lookups of the {@link PatchType} and version work with this descriptor.
+ */
+@Data
+public final class ResourceDescriptor {
+	/**
+	 * File name of the patch, example patch_1.5.sql
+	 */
+	@NonNull private final String name;
+	/**
+	 * Type of the patch or null when the name doesn't represent any known patch type.
+	 */
+	@Nullable private final PatchType patchType;
+	/**
+	 * Version of the {@link PatchType#EVOLVE} or {@link PatchType#GUESS} patch, null for all other resources.
+	 */
+	@Nullable private final VersionDescriptor version;
+
+}
@@ -23,6 +23,22 @@ public interface ResourceMatcher {
 	 */
     boolean isResourceAcceptable(@NonNull PatchType type, @NonNull String patchName);
 
+	/**
+	 * Returns type of the patch so that callers don't need to test all types one by one.
+	 *
+	 * @param patchName file name of the patch
+	 * @return type of the patch or null if name corresponds to no type
+	 */
+	@Nullable
+	default PatchType getPatchType(@NonNull String patchName) {
+		for (PatchType type : PatchType.values()) {
+			if (isResourceAcceptable(type, patchName)) {
+				return type;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Analyzes name of patch represented as {@link Resource} and extracts version from its name.
 	 * @param resource from we want version
@@ -40,9 +56,10 @@ public interface ResourceMatcher {
 	VersionDescriptor getVersionFromPatch(@NonNull Patch patch);
 
 	/**
-	 * Extracts name from patch represented as {@link Resource}.
+	 * Extracts name from patch represented as {@link Resource}. Name identifies the patch in the database, so it must
+	 * not depend on the compression of the resource.
 	 * @param resource from which we want name
-	 * @return name of current resource, example patch_1.5.sql
+	 * @return name of current resource, example patch_1.5.sql (for patch_1.5.sql.gz as well)
 	 */
 	@NonNull
 	String getPatchNameFromResource(@NonNull Resource resource);
@@ -50,7 +67,8 @@ public interface ResourceMatcher {
 	/**
 	 * Extracts platform and name from patch represented as {@link Resource}.
 	 * @param resourcePath resourcePath in example mysql/patch_1.2.sql
-	 * @return return array and on 0 index is platform(mysql) and on 1 is patchName(patch_1.2.sql)
+	 * @return return array and on 0 index is platform(mysql) and on 1 is patchName(patch_1.2.sql) without
+	 * compression suffix
 	 */
 	@NonNull
 	String[] getPlatformAndNameFromResourcePath(@NonNull String resourcePath);
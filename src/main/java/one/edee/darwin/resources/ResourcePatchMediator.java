@@ -1,8 +1,8 @@
 package one.edee.darwin.resources;
 
 import lombok.NonNull;
-import one.edee.darwin.model.InitiatingPatch;
 import one.edee.darwin.model.Patch;
+import one.edee.darwin.model.PatchLedger;
 import one.edee.darwin.model.Platform;
 import one.edee.darwin.storage.DarwinStorage;
 import one.edee.darwin.storage.StorageChecker;
@@ -11,8 +11,8 @@ import org.springframework.core.io.Resource;
 import java.time.LocalDateTime;
 
 /**
- * This method provide patches, when is patch and sql table active, then write information on them and take ID. But when
- * is Db inactive then creates patch with implicit ID(0)
+ * This method provide patches, when is patch and sql table active, then it reuses records of already recorded patches
+ * with their ID. All other patches are created without ID and their records are written only when they are applied.
  *
  * @author Radek Salay, FG Forest a.s. 6/27/16.
  */
@@ -25,8 +25,8 @@ public class ResourcePatchMediator {
 
     /**
      * Retrieves an array of {@link Patch} objects based on the provided resources and the given context.
-     * This method determines if a patch needs to be persisted in the database or created virtually
-     * based on the storage and patch type provided.
+     * Recorded {@link PatchType#EVOLVE} patches are loaded from the storage at once, all other patches are created
+     * virtually - nothing is written to the storage by this method.
      *
      * @param resources      an array of {@link Resource} instances representing the resources to be converted into patches, must not be null
      * @param componentName  the name of the component associated with the patches, must not be null
@@ -43,26 +43,66 @@ public class ResourcePatchMediator {
         @NonNull DarwinStorage darwinStorage,
         @NonNull StorageChecker storageChecker,
         @NonNull PatchType patchType
+    ) {
+        final PatchLedger ledger = patchType == PatchType.EVOLVE ?
+            darwinStorage.getPatchLedger(componentName, platform) :
+            new PatchLedger(componentName, platform);
+        return getPatches(resources, componentName, platform, storageChecker, ledger, patchType);
+    }
+
+    /**
+     * Retrieves an array of {@link Patch} objects based on the provided resources and the given context.
+     * Patches already recorded in the database are taken from the passed ledger so that no additional queries
+     * are necessary for them, all others are created virtually. Records of the virtual patches are created lazily
+     * only when the patch is really applied.
+     *
+     * @param resources      an array of {@link Resource} instances representing the resources to be converted into patches, must not be null
+     * @param componentName  the name of the component associated with the patches, must not be null
+     * @param platform       the platform associated with the patches, must not be null
+     * @param storageChecker the storage checker to verify if patches and SQL table exist, must not be null
+     * @param ledger         snapshot of the patches recorded in the database for the component, must not be null
+     * @param patchType      the type of patch to be created, must not be null
+     **/
+    @NonNull
+    public Patch[] getPatches(
+        @NonNull Resource[] resources,
+        @NonNull String componentName,
+        @NonNull Platform platform,
+        @NonNull StorageChecker storageChecker,
+        @NonNull PatchLedger ledger,
+        @NonNull PatchType patchType
     ) {
         final Patch[] patches = new Patch[resources.length];
         if (storageChecker.existPatchAndSqlTable()) {
-            final boolean anyPatchRecordedFor = darwinStorage.isAnyPatchRecordedFor(componentName);
             for (int i = 0; i < resources.length; i++) {
                 final Resource resource = resources[i];
                 final String patchName = resourceMatcher.getPatchNameFromResource(resource);
-                boolean dbPatch = anyPatchRecordedFor && patchType == PatchType.EVOLVE && resourceMatcher.isResourceAcceptable(PatchType.EVOLVE, patchName);
-                patches[i] = dbPatch ?
-                    convertToPatchPersistedInDatabase(resource, componentName, platform, darwinStorage) :
-                    convertToVirtualPatch(resource, componentName, platform);
+                boolean dbPatch = patchType == PatchType.EVOLVE && resourceMatcher.isResourceAcceptable(PatchType.EVOLVE, patchName);
+                final Patch recordedPatch = dbPatch ? ledger.getPatch(patchName) : null;
+                patches[i] = recordedPatch == null ?
+                    convertToVirtualPatch(resource, componentName, platform) : recordedPatch;
+                linkResource(patches[i], resource);
             }
         } else {
             for (int i = 0; i < resources.length; i++) {
                 patches[i] = convertToVirtualPatch(resources[i], componentName, platform);
+                linkResource(patches[i], resources[i]);
             }
         }
         return patches;
     }
 
+    /**
+     * Remembers file name of the resource in the patch when it differs from the patch name - compressed patches
+     * are identified by the name without compression suffix, but their contents must be read from the original file.
+     */
+    private static void linkResource(@NonNull Patch patch, @NonNull Resource resource) {
+        final String fileName = resource.getFilename();
+        if (fileName != null && !fileName.equals(patch.getPatchName())) {
+            patch.setResourceName(fileName);
+        }
+    }
+
     /**
      * Converts the provided resource to a virtual patch.
      * This method creates a new {@link Patch} instance using the resource, component name,
@@ -86,31 +126,4 @@ public class ResourcePatchMediator {
             LocalDateTime.now()
         );
     }
-
-    /**
-     * Converts the given resource into a persistable database patch.
-     * This method creates a new {@link InitiatingPatch} object using the provided inputs
-     * and assigns the current timestamp for when the patch is created.
-     *
-     * @param resource      the resource to be converted to a patch
-     * @param componentName the name of the component associated with the resource
-     * @param platform      the platform for which the patch is applicable
-     * @param darwinStorage the storage system to associate the patch with
-     * @return a {@link Patch} object persisted with necessary details for the database
-     */
-    @NonNull
-    private Patch convertToPatchPersistedInDatabase(
-        @NonNull Resource resource,
-        @NonNull String componentName,
-        @NonNull Platform platform,
-        @NonNull DarwinStorage darwinStorage
-    ) {
-        return new InitiatingPatch(
-            resourceMatcher.getPatchNameFromResource(resource),
-            componentName,
-            LocalDateTime.now(),
-            platform,
-            darwinStorage
-        );
-    }
 }
@@ -5,10 +5,16 @@ import freemarker.template.SimpleHash;
 import freemarker.template.Template;
 import lombok.extern.apachecommons.CommonsLog;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.DigestUtils;
 
+import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * This resource accessor extend default resource accessor with ability to proces Freemarker scripts inside SQL
@@ -19,6 +25,20 @@ import java.util.Map;
 @CommonsLog
 public class ScriptableResourceAccessor extends DefaultResourceAccessor {
 	private static final Configuration CONFIGURATION = new Configuration(Configuration.VERSION_2_3_28);
+	private static final int TEMPLATE_CACHE_SIZE = 256;
+	/**
+	 * Compiled templates keyed by resource path and hash of the resource content shared by all accessors, so that
+	 * accessors of different tenants rendering the same scripts parse each of them only once. Least recently used
+	 * templates are evicted when the cache exceeds {@link #TEMPLATE_CACHE_SIZE}.
+	 */
+	private static final Map<String, Template> TEMPLATE_CACHE = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+		private static final long serialVersionUID = -2511843364468127356L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+			return size() > TEMPLATE_CACHE_SIZE;
+		}
+	};
 	private final SimpleHash vars = new SimpleHash(CONFIGURATION.getObjectWrapper());
 
 	public ScriptableResourceAccessor() {
@@ -32,6 +52,49 @@ public class ScriptableResourceAccessor extends DefaultResourceAccessor {
 		this.vars.putAll(vars);
 	}
 
+	/**
+	 * Statements are known only after the script is processed by Freemarker.
+	 */
+	@Override
+	protected boolean isPrecompiledStatementSupported() {
+		return false;
+	}
+
+	/**
+	 * Statements are known only after the script is processed by Freemarker.
+	 */
+	@Override
+	protected boolean isStreamingSupported() {
+		return false;
+	}
+
+	/**
+	 * Drops all resolved resource lists and compiled templates.
+	 */
+	@Override
+	public void invalidateCache() {
+		super.invalidateCache();
+		synchronized (TEMPLATE_CACHE) {
+			TEMPLATE_CACHE.clear();
+		}
+	}
+
+	/**
+	 * Renders the script directly into {@link SqlStatementWriter} so that statements are passed to the consumer
+	 * while the template is being processed.
+	 */
+	@Override
+	public void processTokenizedSQLScriptContentFromResource(String resourcePath, Consumer<String> statementConsumer) {
+		final String text = super.getTextContentFromResource(resourcePath);
+		if (text == null) {
+			super.processTokenizedSQLScriptContentFromResource(resourcePath, statementConsumer);
+		} else {
+			try (final SqlStatementWriter writer = new SqlStatementWriter(statementConsumer)) {
+				process(resourcePath, text, writer);
+			}
+		}
+	}
+
 	@Override
     public String getTextContentFromResource(String resourcePath) {
 		String text = super.getTextContentFromResource(resourcePath);
@@ -41,21 +104,41 @@ public class ScriptableResourceAccessor extends DefaultResourceAccessor {
 			}
 			return null;
 		} else {
-			try {
-				Template template = new Template(
-						"darwinUpdateTempTemplate",
-						new StringReader(text),
-						CONFIGURATION
-				);
-				StringWriter writer = new StringWriter(text.length() * 2);
-				template.process(vars, writer);
-				return writer.toString();
-			} catch(Exception e) {
-				String msg = "Error in SQL script preprocessing: " + e.getMessage();
-				log.fatal(msg, e);
-				throw new RuntimeException(msg, e);
+			final StringWriter writer = new StringWriter(text.length() + 64);
+			process(resourcePath, text, writer);
+			return writer.toString();
+		}
+	}
+
+	/**
+	 * Processes the text of the resource as Freemarker template and writes the result to the writer.
+	 */
+	private void process(String resourcePath, String text, Writer writer) {
+		try {
+			getTemplate(resourcePath, text).process(vars, writer);
+		} catch(Exception e) {
+			String msg = "Error in SQL script preprocessing: " + e.getMessage();
+			log.fatal(msg, e);
+			throw new RuntimeException(msg, e);
+		}
+	}
+
+	/**
+	 * Returns compiled template for the text of the resource - templates are parsed only once for the same content.
+	 */
+	static Template getTemplate(String resourcePath, String text) throws IOException {
+		final String key = resourcePath + ":" + DigestUtils.md5DigestAsHex(text.getBytes(StandardCharsets.UTF_8));
+		synchronized (TEMPLATE_CACHE) {
+			final Template cachedTemplate = TEMPLATE_CACHE.get(key);
+			if (cachedTemplate != null) {
+				return cachedTemplate;
 			}
 		}
+		final Template template = new Template(resourcePath, new StringReader(text), CONFIGURATION);
+		synchronized (TEMPLATE_CACHE) {
+			final Template concurrentTemplate = TEMPLATE_CACHE.putIfAbsent(key, template);
+			return concurrentTemplate == null ? template : concurrentTemplate;
+		}
 	}
 
 }
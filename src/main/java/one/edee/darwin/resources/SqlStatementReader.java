@@ -0,0 +1,108 @@
+package one.edee.darwin.resources;
+
+import org.springframework.lang.Nullable;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Streaming counterpart of {@link DefaultResourceAccessor#tokenizeSQLScriptContent(String)}. Reads SQL script from
+ * the {@link Reader} and returns its statements one by one, so that memory consumption is bounded by the size of
+ * the largest statement instead of the size of the script. Produces the same statements as reading the whole resource
+ * by {@link DefaultResourceAccessor#getTextContentFromResource(String)} and tokenizing it - line endings are
+ * normalized, content is trimmed and single trailing semicolon is removed. Tokenization itself is delegated to
+ * {@link SqlStatementWriter}.
+ */
+public class SqlStatementReader implements Closeable {
+	private static final int EOF = -1;
+	private static final char SEMICOLON = ';';
+	private static final int CHUNK_SIZE = 8192;
+	private final Reader reader;
+	private final Deque<String> statements = new ArrayDeque<>();
+	private final SqlStatementWriter writer = new SqlStatementWriter(statements::add);
+	private final char[] chunk = new char[CHUNK_SIZE];
+	/**
+	 * Whitespace (optionally preceded by semicolon) that may be the end of the content and thus must be trimmed.
+	 */
+	private final StringBuilder trailing = new StringBuilder();
+	private boolean contentStarted;
+	private boolean pendingCarriageReturn;
+	private boolean finished;
+
+	public SqlStatementReader(Reader reader) {
+		this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+	}
+
+	/**
+	 * Returns next statement of the script or null when there are no more statements.
+	 */
+	@Nullable
+	public String nextStatement() throws IOException {
+		while (statements.isEmpty() && !finished) {
+			final int read = reader.read(chunk);
+			if (read == EOF) {
+				// trailing whitespace and single trailing semicolon are not part of the content
+				finished = true;
+				writer.close();
+			} else {
+				for (int i = 0; i < read; i++) {
+					acceptRaw(chunk[i]);
+				}
+			}
+		}
+		return statements.poll();
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	/**
+	 * Converts all line endings to `\n`.
+	 */
+	private void acceptRaw(char c) {
+		if (pendingCarriageReturn) {
+			pendingCarriageReturn = false;
+			acceptNormalized('\n');
+			if (c == '\n') {
+				return;
+			}
+		}
+		if (c == '\r') {
+			pendingCarriageReturn = true;
+		} else {
+			acceptNormalized(c);
+		}
+	}
+
+	/**
+	 * Trims whitespace at both ends of the content and holds back the semicolon that might be the trailing one.
+	 */
+	private void acceptNormalized(char c) {
+		if (!contentStarted) {
+			if (c <= ' ') {
+				return;
+			}
+			contentStarted = true;
+		}
+		if (c <= ' ') {
+			trailing.append(c);
+		} else {
+			for (int i = 0; i < trailing.length(); i++) {
+				writer.write(trailing.charAt(i));
+			}
+			trailing.setLength(0);
+			if (c == SEMICOLON) {
+				trailing.append(c);
+			} else {
+				writer.write(c);
+			}
+		}
+	}
+
+}
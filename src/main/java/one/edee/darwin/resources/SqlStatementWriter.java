@@ -0,0 +1,170 @@
+package one.edee.darwin.resources;
+
+import lombok.NonNull;
+
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * Push counterpart of {@link DefaultResourceAccessor#tokenizeSQLScriptContent(String)}. Characters written to
+ * the writer are tokenized on the fly and each statement is passed to the consumer as soon as its terminating
+ * semicolon is written, the last statement is passed on {@link #close()}. Only the statement being parsed is kept
+ * in memory, so the writer may be used as a target of the rendering that produces the script.
+ */
+public class SqlStatementWriter extends Writer {
+	private static final int EOF = -1;
+	private static final char SEMICOLON = ';';
+	private static final char SINGLE_APOSTROPHE = '\'';
+	private static final char DOUBLE_APOSTROPHE = '\"';
+	private static final char ESCAPE_CHAR = '\\';
+	private static final char SLASH_CHAR = '/';
+	private static final char HASH_CHAR = '#';
+	private static final char DASH_CHAR = '-';
+	private static final char STAR_CHAR = '*';
+	private static final char EXCLAMATION_CHAR = '!';
+	/**
+	 * Char used for positions outside the content - the same one {@link DefaultResourceAccessor} uses.
+	 */
+	private static final char OUTSIDE_CHAR = '-';
+	private final Consumer<String> statementConsumer;
+	private final StringBuilder buffer = new StringBuilder();
+	/**
+	 * Current character followed by two look ahead characters - current character is processed once the window is full.
+	 */
+	private final char[] window = new char[3];
+	private int windowSize;
+	private int charsToSkip;
+	private int position = -1;
+	private int previousChar = EOF;
+	private boolean inString;
+	private int stringStartIndex = -1;
+	private boolean inComment;
+	private boolean lineComment;
+	private boolean closed;
+
+	public SqlStatementWriter(@NonNull Consumer<String> statementConsumer) {
+		this.statementConsumer = statementConsumer;
+	}
+
+	@Override
+	public void write(int c) {
+		push((char) c);
+	}
+
+	@Override
+	public void write(@NonNull char[] cbuf, int off, int len) {
+		for (int i = off; i < off + len; i++) {
+			push(cbuf[i]);
+		}
+	}
+
+	@Override
+	public void write(@NonNull String str, int off, int len) {
+		for (int i = off; i < off + len; i++) {
+			push(str.charAt(i));
+		}
+	}
+
+	/**
+	 * Statements are passed to the consumer only when they're complete - there is nothing to flush.
+	 */
+	@Override
+	public void flush() {
+	}
+
+	/**
+	 * Processes the rest of the content and passes the last statement to the consumer.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		while (windowSize > 0) {
+			process(window[0], windowSize > 1 ? window[1] : OUTSIDE_CHAR, windowSize > 2 ? window[2] : OUTSIDE_CHAR);
+			shiftWindow();
+		}
+		addQuery();
+	}
+
+	private void push(char c) {
+		if (closed) {
+			throw new IllegalStateException("SQL statement writer is already closed!");
+		}
+		window[windowSize++] = c;
+		if (windowSize == window.length) {
+			process(window[0], window[1], window[2]);
+			shiftWindow();
+		}
+	}
+
+	private void shiftWindow() {
+		window[0] = window[1];
+		window[1] = window[2];
+		windowSize--;
+	}
+
+	/**
+	 * Processes single character of the content.
+	 */
+	private void process(char currentChar, char nextChar, char nextNextChar) {
+		position++;
+		if (charsToSkip > 0) {
+			charsToSkip--;
+		} else if (!inString && (currentChar == HASH_CHAR || (currentChar == DASH_CHAR && nextChar == DASH_CHAR))) {
+			lineComment = true;
+			inComment = true;
+			charsToSkip = 1;
+		} else if (currentChar == '\n' && lineComment) {
+			lineComment = false;
+			inComment = false;
+		} else if (!inString && currentChar == SLASH_CHAR && nextChar == STAR_CHAR && nextNextChar != EXCLAMATION_CHAR) {
+			inComment = true;
+			charsToSkip = 1;
+		} else if (inComment && !lineComment && currentChar == STAR_CHAR && nextChar == SLASH_CHAR) {
+			inComment = false;
+			charsToSkip = 1;
+		} else if (!inComment &&
+				(isStringDelimiter(currentChar, nextChar, SINGLE_APOSTROPHE) ||
+						isStringDelimiter(currentChar, nextChar, DOUBLE_APOSTROPHE))) {
+			inString = !inString;
+			stringStartIndex = inString ? position : -1;
+			buffer.append(currentChar);
+		} else if (currentChar == SEMICOLON && !inString && !inComment) {
+			if (nextChar != SEMICOLON) {
+				addQuery();
+			} else {
+				buffer.append(currentChar);
+				charsToSkip = 1;
+			}
+		} else if (!inComment) {
+			buffer.append(currentChar);
+		}
+		previousChar = currentChar;
+	}
+
+	/**
+	 * Passes trimmed statement from the buffer to the consumer unless it's empty.
+	 */
+	private void addQuery() {
+		final String query = buffer.toString().trim();
+		buffer.setLength(0);
+		if (query.length() > 0 && !(query.length() == 1 && query.charAt(0) == SEMICOLON)) {
+			statementConsumer.accept(query);
+		}
+	}
+
+	private boolean isStringDelimiter(char currentChar, char nextChar, char delimiterChar) {
+		if (currentChar != delimiterChar) {
+			return false;
+		}
+		final char prevChar = previousChar == EOF ? OUTSIDE_CHAR : (char) previousChar;
+		final boolean isNotEscaped = prevChar != ESCAPE_CHAR;
+		final boolean isNotDuplicatedAndInsideString = (prevChar != delimiterChar || stringStartIndex == position - 1) &&
+				nextChar != delimiterChar;
+		final boolean isTriplecatedInsideString = prevChar == delimiterChar && nextChar == delimiterChar;
+		return isNotEscaped && (isNotDuplicatedAndInsideString || isTriplecatedInsideString);
+	}
+
+}
@@ -4,6 +4,7 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.apachecommons.CommonsLog;
 import one.edee.darwin.model.Platform;
+import one.edee.darwin.resources.CachingResourceAccessor;
 import one.edee.darwin.resources.DefaultResourceAccessor;
 import one.edee.darwin.resources.ResourceAccessor;
 import org.springframework.beans.factory.InitializingBean;
@@ -23,7 +24,11 @@ import java.util.Objects;
  */
 @CommonsLog
 public abstract class AbstractDatabaseStorage implements InitializingBean, ResourceLoaderAware {
-    protected final DefaultResourceAccessor dbResourceAccessor = new DefaultResourceAccessor();
+    private final DefaultResourceAccessor infrastructureResourceAccessor = new DefaultResourceAccessor();
+    /**
+     * Accessor of Darwin's own SQL scripts - they are small and used repeatedly, so they're cached.
+     */
+    protected final CachingResourceAccessor dbResourceAccessor = new CachingResourceAccessor(infrastructureResourceAccessor);
     @Getter protected ResourceLoader resourceLoader;
     @Getter @Setter protected ResourceAccessor resourceAccessor;
     @Getter @Setter protected PlatformTransactionManager transactionManager;
@@ -44,7 +49,8 @@ public abstract class AbstractDatabaseStorage implements InitializingBean, Resou
 
     public void setResourceLoader(ResourceLoader resourceLoader) {
         this.resourceLoader = resourceLoader;
-        this.dbResourceAccessor.setResourceLoader(resourceLoader);
+        this.infrastructureResourceAccessor.setResourceLoader(resourceLoader);
+        this.dbResourceAccessor.invalidate();
     }
 
     public Platform getPlatform() {
@@ -56,6 +62,13 @@ public abstract class AbstractDatabaseStorage implements InitializingBean, Resou
         return platform;
     }
 
+    /**
+     * Sets platform already detected for the data source so that it doesn't need to be detected again.
+     */
+    public void setPlatform(Platform platform) {
+        this.platform = platform;
+    }
+
 
 
 }
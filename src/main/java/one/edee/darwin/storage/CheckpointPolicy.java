@@ -0,0 +1,54 @@
+package one.edee.darwin.storage;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Defines how often the progress of the patch is recorded in DARWIN_SQL table. By default every statement is recorded
+ * before it's executed so that failed patch can be resumed exactly from the failing statement. Bulk patches with
+ * thousands of small statements may trade this precision for speed - records of the executed statements are then
+ * written in JDBC batches every N statements or once at the end of the patch.
+ *
+ * Coarse policies apply to DML statements only - any other statement may commit the transaction implicitly and it's
+ * always recorded before it's executed, with the pending records written ahead of it. When the patch fails, DML
+ * statements executed after the last checkpoint are rolled back, not recorded and executed again when the patch
+ * is resumed.
+ */
+@Data
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CheckpointPolicy {
+	/**
+	 * Each statement is recorded before it's executed - the default behaviour.
+	 */
+	public static final CheckpointPolicy PER_STATEMENT = new CheckpointPolicy(1);
+	/**
+	 * Statements are recorded in single batch after all statements of the patch were executed.
+	 */
+	public static final CheckpointPolicy PER_PATCH = new CheckpointPolicy(Integer.MAX_VALUE);
+
+	/**
+	 * Count of the executed statements recorded together in single batch.
+	 */
+	private final int statementCount;
+
+	/**
+	 * Returns policy recording executed statements in batches of the given size.
+	 *
+	 * @param statementCount count of the statements in single checkpoint, must be positive
+	 */
+	public static CheckpointPolicy every(int statementCount) {
+		if (statementCount <= 0) {
+			throw new IllegalArgumentException("Checkpoint statement count must be positive, got " + statementCount + ".");
+		}
+		return statementCount == 1 ? PER_STATEMENT : new CheckpointPolicy(statementCount);
+	}
+
+	/**
+	 * Returns true if each statement is recorded before it's executed.
+	 */
+	public boolean isPerStatement() {
+		return statementCount == 1;
+	}
+
+}
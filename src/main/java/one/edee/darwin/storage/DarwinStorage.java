@@ -2,13 +2,16 @@ package one.edee.darwin.storage;
 
 import lombok.NonNull;
 import one.edee.darwin.model.Patch;
+import one.edee.darwin.model.PatchLedger;
 import one.edee.darwin.model.Platform;
 import one.edee.darwin.model.SqlCommand;
+import one.edee.darwin.model.SqlCommandLedger;
 import one.edee.darwin.model.version.VersionDescriptor;
 import one.edee.darwin.resources.ResourceAccessor;
 import org.springframework.lang.Nullable;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Describes base persistence layer contract for Darwin.
@@ -49,6 +52,29 @@ public interface DarwinStorage {
      */
     void updateVersionDescriptorForComponent(@NonNull String componentName, @NonNull String version);
 
+    /**
+     * Returns fingerprint of the patch set that was successfully applied to the component last time.
+     *
+     * Default implementation doesn't store fingerprints and the patch set is always checked completely.
+     *
+     * @param componentName unique identification of the component to retrieve fingerprint for
+     * @return fingerprint or null if no fingerprint was stored yet
+     */
+    @Nullable
+    default String getFingerprintForComponent(@NonNull String componentName) {
+        return null;
+    }
+
+    /**
+     * Stores fingerprint of the patch set that was successfully applied to the component.
+     *
+     * @param componentName unique identification of the component
+     * @param fingerprint of the applied patch set
+     */
+    default void updateFingerprintForComponent(@NonNull String componentName, @NonNull String fingerprint) {
+        // fingerprints are not stored by default
+    }
+
     /**
      * Inserts patch to db and returns its ID. If patch is already in db it returns ID of such existing patch.
      *
@@ -73,6 +99,18 @@ public interface DarwinStorage {
      */
     void insertSqlScriptToDB(@NonNull Patch patch, @NonNull SqlCommand sqlCommand);
 
+    /**
+     * Inserts information about several performed SQL commands to database at once.
+     *
+     * @param patch file name of the patch
+     * @param sqlCommands SQL commands inside the patch in the order of their execution
+     */
+    default void insertSqlScriptsToDB(@NonNull Patch patch, @NonNull List<SqlCommand> sqlCommands) {
+        for (SqlCommand sqlCommand : sqlCommands) {
+            insertSqlScriptToDB(patch, sqlCommand);
+        }
+    }
+
     /**
      * Updates information about performed SQL command in database.
      *
@@ -98,6 +136,22 @@ public interface DarwinStorage {
     @NonNull
     Patch getPatchByResourcePath(@NonNull String resourcePath, @NonNull String componentName);
 
+    /**
+     * Loads all patches recorded for the component and platform by single query and returns them as in-memory
+     * snapshot. Returns empty ledger when infrastructural tables are not yet present in the database.
+     *
+     * Default implementation looks up the patches not registered to the ledger one by one by the other methods
+     * of this interface.
+     *
+     * @param componentName name of component the patches belong to
+     * @param platform target database platform of the patches
+     * @return snapshot of all patch records of the component
+     */
+    @NonNull
+    default PatchLedger getPatchLedger(@NonNull String componentName, @NonNull Platform platform) {
+        return new StoragePatchLedger(this, componentName, platform);
+    }
+
     /**
      * Tries to find record for the patch in internal database and looks for timestamp {@link Patch#getFinishedOn()} that
      * signalizes that patch was successfully and entirely applied.
@@ -129,6 +183,24 @@ public interface DarwinStorage {
      */
     void insertComponentToDatabase(@NonNull String componentName);
 
+    /**
+     * Loads hashes and states of all SQL statements recorded for the patch by single query and returns them as
+     * in-memory snapshot. Returns empty ledger when infrastructural tables are not yet present in the database.
+     *
+     * Default implementation returns ledger that cannot answer by itself, so that each statement is checked
+     * by {@link #wasSqlCommandAlreadyExecuted(int, String, int)}.
+     *
+     * @param patchId id of the patch the statements are part of
+     * @return snapshot of all statement records of the patch
+     */
+    @NonNull
+    default SqlCommandLedger getSqlCommandLedger(int patchId) {
+        final SqlCommandLedger ledger = new SqlCommandLedger(patchId);
+        // record without hash makes the ledger unreliable and the statements are looked up one by one
+        ledger.register(null, null);
+        return ledger;
+    }
+
     /**
      * Checks if is sql command was already applied to the database.
      *
@@ -3,8 +3,10 @@ package one.edee.darwin.storage;
 import lombok.*;
 import lombok.extern.apachecommons.CommonsLog;
 import one.edee.darwin.model.Patch;
+import one.edee.darwin.model.PatchLedger;
 import one.edee.darwin.model.Platform;
 import one.edee.darwin.model.SqlCommand;
+import one.edee.darwin.model.SqlCommandLedger;
 import one.edee.darwin.model.version.VersionDescriptor;
 import one.edee.darwin.resources.ResourceMatcher;
 import org.springframework.dao.DataAccessException;
@@ -12,14 +14,14 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.lang.Nullable;
-import org.springframework.util.DigestUtils;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +38,14 @@ import static java.util.Optional.ofNullable;
 @CommonsLog
 public class DefaultDatabaseDarwinStorage extends AbstractDatabaseStorage implements DarwinStorage {
     private static final Map<StatementTypeWithPlatform, String> STATEMENTS_CACHE = new ConcurrentHashMap<>();
+    private static final RowMapper<Patch> PATCH_ROW_MAPPER = (rs, rowNum) -> new Patch(
+        rs.getInt("id"),
+        rs.getString("patchName"),
+        rs.getString("componentName"),
+        rs.getTimestamp("detectedOn").toLocalDateTime(),
+        Platform.identify(rs.getString("platform")),
+        ofNullable(rs.getTimestamp("finishedOn")).map(Timestamp::toLocalDateTime).orElse(null)
+    );
     @Getter
     private final ResourceMatcher resourceMatcher;
     @Getter
@@ -96,6 +106,36 @@ public class DefaultDatabaseDarwinStorage extends AbstractDatabaseStorage implem
         }
     }
 
+    @Nullable
+    @Override
+    public String getFingerprintForComponent(@NonNull String componentName) {
+        final String sql = STATEMENTS_CACHE.computeIfAbsent(
+            getKey(StorageStatement.GET_FINGERPRINT), this::readContentFromResource
+        );
+        try {
+            return jdbcTemplate.queryForObject(sql, String.class, componentName);
+        } catch (EmptyResultDataAccessException | BadSqlGrammarException ignored) {
+            //EmptyResultDataAccessException might happen when there are no record in Darwin
+            //BadSqlGrammarException might happen when Darwin infrastructural tables are not yet upgraded
+            return null;
+        }
+    }
+
+    @Override
+    public void updateFingerprintForComponent(@NonNull String componentName, @NonNull String fingerprint) {
+        final String sql = STATEMENTS_CACHE.computeIfAbsent(
+            getKey(StorageStatement.UPDATE_FINGERPRINT), this::readContentFromResource
+        );
+        try {
+            jdbcTemplate.update(sql, fingerprint, componentName);
+        } catch (BadSqlGrammarException ex) {
+            //fingerprint column might be missing when Darwin infrastructural tables are not yet upgraded
+            if (log.isDebugEnabled()) {
+                log.debug("Fingerprint of component " + componentName + " cannot be stored: " + ex.getMessage());
+            }
+        }
+    }
+
     @Override
     public void insertSqlScriptToDB(@NonNull Patch patch, @NonNull SqlCommand sqlCommand) {
         insertSqlScriptToDB(
@@ -105,6 +145,28 @@ public class DefaultDatabaseDarwinStorage extends AbstractDatabaseStorage implem
         );
     }
 
+    @SuppressWarnings("SqlSourceToSinkFlow")
+    @Override
+    public void insertSqlScriptsToDB(@NonNull Patch patch, @NonNull List<SqlCommand> sqlCommands) {
+        if (patch.isInDb() && !sqlCommands.isEmpty()) {
+            final String sql = STATEMENTS_CACHE.computeIfAbsent(
+                getKey(StorageStatement.INSERT_SQL_SCRIPT), this::readContentFromResource
+            );
+            final List<Object[]> batchArgs = new ArrayList<>(sqlCommands.size());
+            for (SqlCommand sqlCommand : sqlCommands) {
+                batchArgs.add(
+                    new Object[]{
+                        patch.getPatchId(), sqlCommand.getStatement(), computeHash(sqlCommand.getStatement()),
+                        sqlCommand.getProcessTime(),
+                        sqlCommand.getFinishedOn() != null ? Timestamp.valueOf(sqlCommand.getFinishedOn()) : null,
+                        sqlCommand.getException() != null ? exceptionToString(sqlCommand.getException()) : null
+                    }
+                );
+            }
+            jdbcTemplate.batchUpdate(sql, batchArgs);
+        }
+    }
+
     @Override
     public void updateSqlScriptInDB(@NonNull Patch patch, @NonNull SqlCommand sqlCommand) {
         updateSqlScriptInDB(
@@ -201,6 +263,25 @@ public class DefaultDatabaseDarwinStorage extends AbstractDatabaseStorage implem
         return patchFromDb != null;
     }
 
+    @NonNull
+    @Override
+    public PatchLedger getPatchLedger(@NonNull String componentName, @NonNull Platform platform) {
+        final PatchLedger ledger = new PatchLedger(componentName, platform);
+        if (storageChecker.existPatchAndSqlTable()) {
+            final String sql = STATEMENTS_CACHE.computeIfAbsent(
+                getKey(StorageStatement.GET_PATCHES_FOR_COMPONENT), this::readContentFromResource
+            );
+            try {
+                for (Patch patch : jdbcTemplate.query(sql, PATCH_ROW_MAPPER, componentName, platform.name())) {
+                    ledger.register(patch);
+                }
+            } catch (BadSqlGrammarException ignored) {
+                // DARWIN_PATCH table probably doesn't exist.
+            }
+        }
+        return ledger;
+    }
+
     @Override
     public boolean isPatchFinishedInDb(@NonNull Patch patch) {
         final Patch patchFromDb;
@@ -230,6 +311,28 @@ public class DefaultDatabaseDarwinStorage extends AbstractDatabaseStorage implem
         jdbcTemplate.update(sql, componentName, "1.0");
     }
 
+    @NonNull
+    @Override
+    public SqlCommandLedger getSqlCommandLedger(int patchId) {
+        final SqlCommandLedger ledger = new SqlCommandLedger(patchId);
+        if (storageChecker.existPatchAndSqlTable()) {
+            final String sql = STATEMENTS_CACHE.computeIfAbsent(
+                getKey(StorageStatement.GET_EXECUTED_SQL_COMMANDS), this::readContentFromResource
+            );
+            jdbcTemplate.query(
+                sql,
+                rs -> {
+                    ledger.register(
+                        rs.getString("statementHash"),
+                        ofNullable(rs.getTimestamp("finishedOn")).map(Timestamp::toLocalDateTime).orElse(null)
+                    );
+                },
+                patchId
+            );
+        }
+        return ledger;
+    }
+
     @NonNull
     @Override
     public SqlScriptStatus wasSqlCommandAlreadyExecuted(int patchId, @NonNull String script, int occurrence) {
@@ -261,7 +364,7 @@ public class DefaultDatabaseDarwinStorage extends AbstractDatabaseStorage implem
         @NonNull Patch patch,
         @NonNull String statement,
         long processTime,
-        @NonNull LocalDateTime finishedOn,
+        @Nullable LocalDateTime finishedOn,
         @Nullable Exception exception
     ) {
         if (patch.isInDb()) {
@@ -271,7 +374,7 @@ public class DefaultDatabaseDarwinStorage extends AbstractDatabaseStorage implem
             jdbcTemplate.update(
                 sql, patch.getPatchId(), statement, computeHash(statement),
                 processTime,
-                java.sql.Timestamp.valueOf(finishedOn),
+                finishedOn != null ? java.sql.Timestamp.valueOf(finishedOn) : null,
                 exception != null ? exceptionToString(exception) : null
             );
         }
@@ -299,7 +402,7 @@ public class DefaultDatabaseDarwinStorage extends AbstractDatabaseStorage implem
     }
 
     private String computeHash(@NonNull String statement) {
-        return DigestUtils.md5DigestAsHex(statement.getBytes(StandardCharsets.UTF_8));
+        return SqlCommandLedger.computeHash(statement);
     }
 
     @Nullable
@@ -315,14 +418,8 @@ public class DefaultDatabaseDarwinStorage extends AbstractDatabaseStorage implem
             return jdbcTemplate.queryForObject(
                 sql,
                 new Object[]{patchName, componentName, platform.name()},
-                (rs, rowNum) -> new Patch(
-                    rs.getInt("id"),
-                    rs.getString("patchName"),
-                    rs.getString("componentName"),
-                    rs.getTimestamp("detectedOn").toLocalDateTime(),
-                    Platform.identify(rs.getString("platform")),
-                    ofNullable(rs.getTimestamp("finishedOn")).map(Timestamp::toLocalDateTime).orElse(null)
-                ));
+                PATCH_ROW_MAPPER
+            );
         } catch (EmptyResultDataAccessException ignored) {
             //no patch exists in database
             return null;
@@ -359,11 +456,15 @@ public class DefaultDatabaseDarwinStorage extends AbstractDatabaseStorage implem
         UPDATE_COMPONENT("update_component.sql"),
         IS_ANY_PATCH_FOR_COMPONENT("select_isAnyPatchRecordedForComponent.sql"),
         GET_PATCH("select_patchFromDb.sql"),
+        GET_PATCHES_FOR_COMPONENT("select_patchesForComponent.sql"),
         INSERT_PATCH("insert_patch.sql"),
         MARK_PATCH_AS_FINISHED("update_markPatchAsFinished.sql"),
         UPDATE_SQL_SCRIPT("update_script.sql"),
         GET_VERSION("version.sql"),
+        GET_FINGERPRINT("select_fingerprint.sql"),
+        UPDATE_FINGERPRINT("update_fingerprint.sql"),
         WAS_SQL_EXECUTED("select_wasSqlCommandAlreadyExecuted.sql"),
+        GET_EXECUTED_SQL_COMMANDS("select_executedSqlCommands.sql"),
         INSERT_SQL_SCRIPT("insert_script.sql");
 
         @Getter
@@ -1,5 +1,6 @@
 package one.edee.darwin.storage;
 
+import lombok.Data;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -18,8 +19,12 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Default implementation of storage checker just runs selected scripts and when it ends without any exception
@@ -32,7 +37,35 @@ import java.util.Objects;
 public class DefaultDatabaseStorageChecker extends AbstractDatabaseStorage implements StorageChecker {
     private final ResourcePatchMediator resourcePatchMediator;
     @Setter @Getter private ResourceMatcher resourceMatcher;
-	@Setter @Getter private boolean patchAndTableExists;
+	/**
+	 * Flag may be shared among all checkers working with the same data source.
+	 */
+	@NonNull private AtomicBoolean patchAndTableExistence = new AtomicBoolean();
+	/**
+	 * When true, {@link #guessVersion(String, DarwinStorage)} finds the matching version by binary search over
+	 * the guess scripts instead of executing them one by one and results of the guess scripts are memoized.
+	 */
+	@Setter @Getter private boolean binarySearchGuess;
+	/**
+	 * Memoized results of the guess scripts executed in the binary search mode.
+	 */
+	private final Map<GuessKey, Boolean> guessResults = new ConcurrentHashMap<>();
+
+	/**
+	 * Makes this checker share the knowledge about presence of infrastructural tables with other checkers
+	 * of the same data source.
+	 */
+	public void sharePatchAndTableExistence(@NonNull AtomicBoolean patchAndTableExistence) {
+		this.patchAndTableExistence = patchAndTableExistence;
+	}
+
+	public boolean isPatchAndTableExists() {
+		return patchAndTableExistence.get();
+	}
+
+	public void setPatchAndTableExists(boolean patchAndTableExists) {
+		this.patchAndTableExistence.set(patchAndTableExists);
+	}
 
 	@Nullable
 	@Override
@@ -45,6 +78,9 @@ public class DefaultDatabaseStorageChecker extends AbstractDatabaseStorage imple
         final Patch[] patches = resourcePatchMediator.getPatches(
         		sortedResourceList, componentName, platform, darwinStorage, this,
 				PatchType.GUESS);
+        if (binarySearchGuess) {
+        	return guessVersionByBinarySearch(componentName, darwinStorage, patches);
+		}
         VersionDescriptor guessedVersion = null;
 
         for (Patch patch : patches) {
@@ -76,6 +112,12 @@ public class DefaultDatabaseStorageChecker extends AbstractDatabaseStorage imple
 		@NonNull DarwinStorage darwinStorage,
 		@NonNull VersionDescriptor checkedVersion
 	) {
+		if (binarySearchGuess) {
+			final Boolean memoizedResult = guessResults.get(new GuessKey(componentName, checkedVersion));
+			if (memoizedResult != null) {
+				return memoizedResult;
+			}
+		}
 		final Platform platform = getPlatform();
 		final Resource[] sortedResourceList = resourceAccessor.getSortedResourceList(platform);
 		final Patch[] patches = resourcePatchMediator.getPatches(
@@ -89,6 +131,9 @@ public class DefaultDatabaseStorageChecker extends AbstractDatabaseStorage imple
 					long start = System.currentTimeMillis();
 					boolean result = executeScript(patch);
 					long stop = System.currentTimeMillis();
+					if (binarySearchGuess) {
+						guessResults.put(new GuessKey(componentName, patchVersion), result);
+					}
 					if (result) {
 						markGuessedPatchAsFinished(darwinStorage, patch, patchVersion, start, stop);
 						return true;
@@ -99,6 +144,70 @@ public class DefaultDatabaseStorageChecker extends AbstractDatabaseStorage imple
 		return false;
 	}
 
+	/**
+	 * Finds the highest version whose guess script matches the storage by binary search over the sorted guess
+	 * scripts. Guess scripts are expected to be monotonic - when the script of some version matches, scripts of all
+	 * lower versions match as well. Results of the executed scripts are memoized for the rest of the run, all guess
+	 * patches up to the found version are marked as finished.
+	 */
+	@Nullable
+	private VersionDescriptor guessVersionByBinarySearch(
+		@NonNull String componentName,
+		@NonNull DarwinStorage darwinStorage,
+		@NonNull Patch[] patches
+	) {
+		final List<Patch> guessPatches = new ArrayList<>(patches.length);
+		for (Patch patch : patches) {
+			if (resourceMatcher.isResourceAcceptable(PatchType.GUESS, patch.getPatchName())) {
+				Assert.isTrue(
+						resourceMatcher.getVersionFromPatch(patch) != null,
+						"Resource version must not be null for patch: " + patch.getPatchName()
+				);
+				guessPatches.add(patch);
+			}
+		}
+		final long[] processTimes = new long[guessPatches.size()];
+		int low = 0;
+		int high = guessPatches.size() - 1;
+		int matchingIndex = -1;
+		while (low <= high) {
+			final int middle = (low + high) >>> 1;
+			final Patch patch = guessPatches.get(middle);
+			final GuessKey key = new GuessKey(componentName, resourceMatcher.getVersionFromPatch(patch));
+			Boolean result = guessResults.get(key);
+			if (result == null) {
+				final long start = System.currentTimeMillis();
+				result = executeScript(patch);
+				processTimes[middle] = System.currentTimeMillis() - start;
+				guessResults.put(key, result);
+			}
+			if (result) {
+				matchingIndex = middle;
+				low = middle + 1;
+			} else {
+				if (log.isDebugEnabled()) {
+					log.debug("Storage not compatible with version: " + key.getVersion());
+				}
+				high = middle - 1;
+			}
+		}
+		for (int i = 0; i <= matchingIndex; i++) {
+			final Patch patch = guessPatches.get(i);
+			final VersionDescriptor version = resourceMatcher.getVersionFromPatch(patch);
+			// lower versions are implied by the monotonicity of the guess scripts
+			guessResults.put(new GuessKey(componentName, version), true);
+			markGuessedPatchAsFinished(darwinStorage, patch, version, 0, processTimes[i]);
+		}
+		return matchingIndex == -1 ? null : resourceMatcher.getVersionFromPatch(guessPatches.get(matchingIndex));
+	}
+
+	/**
+	 * Drops memoized results of the guess scripts.
+	 */
+	public void clearGuessResults() {
+		guessResults.clear();
+	}
+
 	private void markGuessedPatchAsFinished(
 		@NonNull DarwinStorage darwinStorage,
 		@NonNull Patch patch,
@@ -124,7 +233,7 @@ public class DefaultDatabaseStorageChecker extends AbstractDatabaseStorage imple
 
 	@Override
     public boolean existPatchAndSqlTable() {
-        if (patchAndTableExists) {
+        if (patchAndTableExistence.get()) {
             //due to performance optimization, we assume that once tables exists they continue to exists once for all
             return true;
         } else {
@@ -139,7 +248,7 @@ public class DefaultDatabaseStorageChecker extends AbstractDatabaseStorage imple
 		try {
 			jdbcTemplate.execute(sqlForPatch);
 			jdbcTemplate.execute(sqlForSQL);
-			patchAndTableExists = true;
+			patchAndTableExistence.set(true);
 			return true;
 		} catch (BadSqlGrammarException ignored) {
 			//if any of the SQL files fails - target table is not present in database
@@ -150,8 +259,10 @@ public class DefaultDatabaseStorageChecker extends AbstractDatabaseStorage imple
 	@SuppressWarnings("SqlSourceToSinkFlow")
     private boolean executeScript(@NonNull Patch patch) {
 		final List<String> tokenizedScript = resourceAccessor.getTokenizedSQLScriptContentFromResource(patch.getResourcesPath());
+		String currentSql = null;
 		try {
 			for (String sql : tokenizedScript) {
+				currentSql = sql;
 				if (sql.trim().toLowerCase().matches("select\\s*count\\(.*")) {
 					final Integer result = jdbcTemplate.queryForObject(sql, Integer.class);
 					if (result == null || result == 0) {
@@ -166,11 +277,20 @@ public class DefaultDatabaseStorageChecker extends AbstractDatabaseStorage imple
 			//guess script failed
 			return false;
         } catch (DataAccessException ex) {
-            String msg = "Failed to execute script: " + resourceAccessor.getTextContentFromResource(patch.getResourcesPath());
+            String msg = "Failed to execute script " + patch.getResourcesPath() + ": " + currentSql;
             log.error(msg, ex);
             return false;
 
         }
     }
 
+	/**
+	 * Identification of the guess script result.
+	 */
+	@Data
+	private static class GuessKey {
+		private final String componentName;
+		private final VersionDescriptor version;
+	}
+
 }
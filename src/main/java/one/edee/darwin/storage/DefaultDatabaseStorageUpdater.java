@@ -1,11 +1,18 @@
 package one.edee.darwin.storage;
 
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.extern.apachecommons.CommonsLog;
 import one.edee.darwin.model.Patch;
+import one.edee.darwin.model.PreparedPatch;
 import one.edee.darwin.model.SqlCommand;
+import one.edee.darwin.model.SqlCommandLedger;
 import one.edee.darwin.storage.DarwinStorage.SqlScriptStatus;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.lang.Nullable;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
@@ -13,10 +20,20 @@ import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -26,18 +43,91 @@ import java.util.regex.Pattern;
  */
 @CommonsLog
 public class DefaultDatabaseStorageUpdater extends AbstractDatabaseStorage implements StorageUpdater {
+	private static final Pattern DML_STATEMENT = Pattern.compile(
+			"^\\s*(?:INSERT|UPDATE|DELETE|MERGE|REPLACE)\\s", Pattern.CASE_INSENSITIVE
+	);
+	private static final Pattern HASH_COMMENT = Pattern.compile("^\\s*+#.+?$", Pattern.MULTILINE);
+	private static final Pattern DASH_COMMENT = Pattern.compile("^\\s*+--.+?$", Pattern.MULTILINE);
+	private static final Pattern BLOCK_COMMENT = Pattern.compile("^\\s*+/\\*.+?\\*/", Pattern.DOTALL | Pattern.MULTILINE);
 	private final StorageChecker storageChecker;
+	/**
+	 * Checkpoint policy used for all patches without specific policy.
+	 */
+	@Getter @Setter @NonNull private CheckpointPolicy checkpointPolicy = CheckpointPolicy.PER_STATEMENT;
+	/**
+	 * Patch file name -> checkpoint policy overriding the default one for that patch.
+	 */
+	private final Map<String, CheckpointPolicy> patchCheckpointPolicies = new ConcurrentHashMap<>();
+	/**
+	 * Maximal count of consecutive DML statements sent to the database in single JDBC batch, values lower than two
+	 * switch the batching off.
+	 */
+	@Getter @Setter private int dmlBatchSize = 1;
+	/**
+	 * Maximal count of consecutive statements sent to the database in single call on platforms that support it
+	 * (see {@link StatementPipeline}), values lower than two switch the pipelining off.
+	 */
+	@Getter @Setter private int pipelineSize = 1;
 
 	public DefaultDatabaseStorageUpdater(@NonNull StorageChecker storageChecker) {
 		this.storageChecker = storageChecker;
 	}
 
+	/**
+	 * Sets checkpoint policy for the patch of the specified file name, example patch_1.5.sql.
+	 */
+	public void setPatchCheckpointPolicy(@NonNull String patchName, @NonNull CheckpointPolicy checkpointPolicy) {
+		patchCheckpointPolicies.put(patchName, checkpointPolicy);
+	}
+
+	/**
+	 * Returns checkpoint policy effective for the patch of the specified file name.
+	 */
+	@NonNull
+	public CheckpointPolicy getCheckpointPolicy(@NonNull String patchName) {
+		return patchCheckpointPolicies.getOrDefault(patchName, checkpointPolicy);
+	}
+
 	@Override
     public void executeScript(
 		@NonNull String resourcePath,
 		@NonNull String componentName,
 		@NonNull DarwinStorage darwinStorage,
 		@NonNull StorageChecker storageChecker
+	) {
+		executeInTransaction(
+				resourcePath, componentName, darwinStorage,
+				statementConsumer -> resourceAccessor.processTokenizedSQLScriptContentFromResource(
+						resourcePath, statement -> statementConsumer.accept(statement, SqlCommandLedger.computeHash(statement))
+				)
+		);
+    }
+
+	/**
+	 * Executes statements of the patch prepared in advance with their hashes.
+	 */
+	@Override
+	public void executeScript(
+		@NonNull PreparedPatch preparedPatch,
+		@NonNull String componentName,
+		@NonNull DarwinStorage darwinStorage,
+		@NonNull StorageChecker storageChecker
+	) {
+		executeInTransaction(
+				preparedPatch.getResourcePath(), componentName, darwinStorage,
+				statementConsumer -> {
+					for (int i = 0; i < preparedPatch.getStatements().size(); i++) {
+						statementConsumer.accept(preparedPatch.getStatements().get(i), preparedPatch.getStatementHashes().get(i));
+					}
+				}
+		);
+	}
+
+	private void executeInTransaction(
+		@NonNull String resourcePath,
+		@NonNull String componentName,
+		@NonNull DarwinStorage darwinStorage,
+		@NonNull Consumer<BiConsumer<String, String>> statementSource
 	) {
         if (transactionManager != null) {
             //though DDL commands make implicit commit - do this in transaction in order to make Spring
@@ -46,14 +136,14 @@ public class DefaultDatabaseStorageUpdater extends AbstractDatabaseStorage imple
                     new TransactionCallbackWithoutResult() {
                         @Override
                         protected void doInTransactionWithoutResult(TransactionStatus status) {
-                            performUpdate(resourcePath, componentName, darwinStorage);
+                            performUpdate(resourcePath, componentName, darwinStorage, statementSource);
                         }
                     }
             );
         } else {
-            performUpdate(resourcePath, componentName, darwinStorage);
+            performUpdate(resourcePath, componentName, darwinStorage, statementSource);
         }
-    }
+	}
 
     /**
      * Reads resource from resourcePath, parses it to individual SQL commands and executes one by one.
@@ -62,32 +152,66 @@ public class DefaultDatabaseStorageUpdater extends AbstractDatabaseStorage imple
      *
      * @param resourcePath  path to concrete patch
      * @param componentName name of updated component
+     * @param statementSource passes statements of the patch with their hashes to the consumer
      */
     private void performUpdate(
 		@NonNull String resourcePath,
 		@NonNull String componentName,
-		@NonNull DarwinStorage darwinStorage
+		@NonNull DarwinStorage darwinStorage,
+		@NonNull Consumer<BiConsumer<String, String>> statementSource
 	) {
-        final List<String> sqlCommands = resourceAccessor.getTokenizedSQLScriptContentFromResource(resourcePath);
         final Patch patch = darwinStorage.getPatchByResourcePath(resourcePath, componentName);
 	    final boolean patchAndSqlTableExists = storageChecker.existPatchAndSqlTable();
 
 		long start = System.currentTimeMillis();
-		final Map<String, Integer> executedCommands = new HashMap<>(sqlCommands.size());
-        for (String sqlCommand : sqlCommands) {
-			final Integer occurrence = executedCommands.get(sqlCommand);
-			final int newOccurrence = occurrence == null ? 1 : occurrence + 1;
-			executedCommands.put(sqlCommand, newOccurrence);
-	        final SqlScriptStatus executionStatus = patchAndSqlTableExists && patch.getPatchId() != null ?
-			        darwinStorage.wasSqlCommandAlreadyExecuted(patch.getPatchId(), sqlCommand, newOccurrence) : SqlScriptStatus.NOT_EXECUTED;
+		// all statements recorded for the patch are loaded by single query
+		final SqlCommandLedger ledger = patchAndSqlTableExists && patch.getPatchId() != null ?
+				darwinStorage.getSqlCommandLedger(patch.getPatchId()) : null;
+		// statements are executed as soon as they are parsed - only hashes of the executed ones are kept in memory
+		final Map<String, Integer> executedCommands = new HashMap<>();
+		// executed statements waiting for the next checkpoint, used only by coarse checkpoint policies
+		final CheckpointPolicy policy = getCheckpointPolicy(patch.getPatchName());
+		final List<SqlCommand> pendingCommands = new ArrayList<>();
+		// consecutive DML statements waiting for execution in single JDBC batch
+		final List<String> pendingBatch = new ArrayList<>();
+		// consecutive statements waiting for execution in single pipelined call
+		final StatementPipeline pipeline = pipelineSize > 1 ? StatementPipeline.forPlatform(getPlatform()) : null;
+		final List<String> pendingGroup = new ArrayList<>();
+		statementSource.accept((sqlCommand, statementHash) -> {
+			final int newOccurrence = executedCommands.merge(statementHash, 1, Integer::sum);
+	        final SqlScriptStatus executionStatus = getExecutionStatus(patch, ledger, sqlCommand, statementHash, newOccurrence, darwinStorage);
 
 	        if (executionStatus == SqlScriptStatus.EXECUTED_FINISHED) {
                 log.info("Skipping (was already executed before) - occurrence " + newOccurrence + ":\n" + sqlCommand);
+            } else if (dmlBatchSize > 1 && executionStatus == SqlScriptStatus.NOT_EXECUTED && isDmlStatement(sqlCommand)) {
+		        executePipeline(patch, pipeline, pendingGroup, policy, pendingCommands, darwinStorage);
+                log.info("Executing in batch:\n" + sqlCommand);
+                pendingBatch.add(sqlCommand);
+                if (pendingBatch.size() >= dmlBatchSize) {
+	                executeBatch(patch, pendingBatch, policy, pendingCommands, darwinStorage);
+                }
+            } else if (pipeline != null && executionStatus == SqlScriptStatus.NOT_EXECUTED && pipeline.accepts(sqlCommand)) {
+		        executeBatch(patch, pendingBatch, policy, pendingCommands, darwinStorage);
+		        if (!pendingGroup.isEmpty() && isDmlStatement(sqlCommand) && !isDmlStatement(pendingGroup.get(pendingGroup.size() - 1))) {
+			        // record of DML statement following DDL statement in the same call would be committed by the DDL
+			        // statement before the DML statement is executed
+			        executePipeline(patch, pipeline, pendingGroup, policy, pendingCommands, darwinStorage);
+		        }
+                log.info("Executing in pipeline:\n" + sqlCommand);
+                pendingGroup.add(sqlCommand);
+                if (pendingGroup.size() >= pipelineSize || !pipeline.recognizesFailedStatement() && !isDmlStatement(sqlCommand)) {
+	                executePipeline(patch, pipeline, pendingGroup, policy, pendingCommands, darwinStorage);
+                }
             } else {
+		        executeBatch(patch, pendingBatch, policy, pendingCommands, darwinStorage);
+		        executePipeline(patch, pipeline, pendingGroup, policy, pendingCommands, darwinStorage);
                 log.info("Executing:\n" + sqlCommand);
-                executeSqlCommand(patch, sqlCommand, darwinStorage, executionStatus);
+                executeRegularly(patch, sqlCommand, executionStatus, policy, pendingCommands, darwinStorage);
             }
-        }
+        });
+		executeBatch(patch, pendingBatch, policy, pendingCommands, darwinStorage);
+		executePipeline(patch, pipeline, pendingGroup, policy, pendingCommands, darwinStorage);
+		writeCheckpoint(patch, pendingCommands, darwinStorage);
 	    long stop = System.currentTimeMillis();
 
         // infrastructural tables has been just created
@@ -105,6 +229,393 @@ public class DefaultDatabaseStorageUpdater extends AbstractDatabaseStorage imple
         }
     }
 
+    /**
+     * Returns status of the statement from the ledger. Ledgers containing records without hashes (written by older
+     * Darwin versions) cannot answer reliably and the database is asked for the statement directly.
+     *
+     * @param statementHash hash of the statement computed in advance, used for its first occurrence
+     */
+    @NonNull
+    static SqlScriptStatus getExecutionStatus(
+		@NonNull Patch patch,
+		@Nullable SqlCommandLedger ledger,
+		@NonNull String sqlCommand,
+		@NonNull String statementHash,
+		int occurrence,
+		@NonNull DarwinStorage darwinStorage
+	) {
+		if (ledger == null || ledger.isEmpty()) {
+			return SqlScriptStatus.NOT_EXECUTED;
+		} else if (ledger.isUnhashedStatementPresent()) {
+			return darwinStorage.wasSqlCommandAlreadyExecuted(patch.getPatchId(), sqlCommand, occurrence);
+		}
+		// repeated occurrences of the same statement are looked up with the marker the same way as in the storage
+		final String occurrenceHash = occurrence > 1 ?
+				SqlCommandLedger.computeHash("-- occurrence: " + occurrence + "\n" + sqlCommand) : statementHash;
+		if (ledger.isFinished(occurrenceHash)) {
+			return SqlScriptStatus.EXECUTED_FINISHED;
+		}
+		return ledger.isRecorded(occurrenceHash) ? SqlScriptStatus.EXECUTED_FAILED : SqlScriptStatus.NOT_EXECUTED;
+	}
+
+    /**
+     * Records all executed statements waiting for the checkpoint in single batch.
+     */
+    private static void writeCheckpoint(
+		@NonNull Patch patch,
+		@NonNull List<SqlCommand> pendingCommands,
+		@NonNull DarwinStorage darwinStorage
+	) {
+		if (!pendingCommands.isEmpty()) {
+			darwinStorage.insertSqlScriptsToDB(patch, pendingCommands);
+			pendingCommands.clear();
+		}
+	}
+
+    /**
+     * Executes all pending DML statements in single JDBC batch. Executed statements are recorded at the next checkpoint
+     * of the policy - DML statements don't make implicit commit so recording them after the execution in the same
+     * transaction is as safe as recording them one by one in advance. If the batch fails, the failing statement
+     * is recognized from the update counts of the driver and its failure is recorded after the transaction is rolled
+     * back.
+     */
+    @SuppressWarnings("SqlSourceToSinkFlow")
+    private void executeBatch(
+		@NonNull Patch patch,
+		@NonNull List<String> pendingBatch,
+		@NonNull CheckpointPolicy policy,
+		@NonNull List<SqlCommand> pendingCommands,
+		@NonNull DarwinStorage darwinStorage
+	) {
+		if (pendingBatch.isEmpty()) {
+			return;
+		}
+		final long startBatch = System.currentTimeMillis();
+		// exception translation hides the batch exception - index of the failing statement is kept aside
+		final AtomicInteger failedIndex = new AtomicInteger();
+		try {
+			jdbcTemplate.execute((StatementCallback<int[]>) statement -> {
+				if (!statement.getConnection().getMetaData().supportsBatchUpdates()) {
+					final int[] updateCounts = new int[pendingBatch.size()];
+					for (int i = 0; i < updateCounts.length; i++) {
+						failedIndex.set(i);
+						statement.execute(removeCommentsFromContent(pendingBatch.get(i)));
+						updateCounts[i] = statement.getUpdateCount();
+					}
+					return updateCounts;
+				}
+				for (String sqlStatement : pendingBatch) {
+					statement.addBatch(removeCommentsFromContent(sqlStatement));
+				}
+				try {
+					return statement.executeBatch();
+				} catch (BatchUpdateException ex) {
+					failedIndex.set(getFailedStatementIndex(ex, pendingBatch.size()));
+					throw ex;
+				}
+			});
+		} catch (final DataAccessException ex) {
+			final String failedStatement = pendingBatch.get(failedIndex.get());
+			pendingBatch.clear();
+			if (log.isErrorEnabled()) {
+				log.error("Failed to execute script: " + failedStatement, ex);
+			}
+			if (patch.isInDb()) {
+				recordFailureAfterRollback(
+						() -> darwinStorage.insertSqlScriptToDB(
+								patch, new SqlCommand(patch.getPatchId(),
+										failedStatement, System.currentTimeMillis() - startBatch,
+										null, ex)
+						)
+				);
+			}
+			throw ex;
+		}
+		if (patch.isInDb()) {
+			final long processTime = (System.currentTimeMillis() - startBatch) / pendingBatch.size();
+			final LocalDateTime finishedOn = LocalDateTime.now();
+			for (String sqlStatement : pendingBatch) {
+				pendingCommands.add(new SqlCommand(patch.getPatchId(), sqlStatement, processTime, finishedOn));
+			}
+			if (pendingCommands.size() >= policy.getStatementCount()) {
+				writeCheckpoint(patch, pendingCommands, darwinStorage);
+			}
+		}
+		pendingBatch.clear();
+	}
+
+    /**
+     * Executes all pending statements in single pipelined call. With the per statement checkpoint policy or when
+     * the call contains statement that may commit implicitly, the statements are recorded in advance by single batch
+     * in the same transaction - whatever the implicit commit persists, it persists together with its records. Groups
+     * of DML statements are recorded after the call with coarse policies. When the call fails:
+     *
+     * - if nothing was committed by the call, the transaction is rolled back to the savepoint taken before the call
+     *   and the statements are executed again one by one, so that the exact failing statement is recognized
+     * - if the pipeline recognizes the failing statement, the records of the statements before it are left as they
+     *   were committed and the records of the failing statement and the statements after it are reset
+     * - pipelines not recognizing the failing statement end the group with the first statement that may commit
+     *   implicitly - when the savepoint is gone, it was that last statement of the group that failed
+     */
+    private void executePipeline(
+		@NonNull Patch patch,
+		@Nullable StatementPipeline pipeline,
+		@NonNull List<String> pendingGroup,
+		@NonNull CheckpointPolicy policy,
+		@NonNull List<SqlCommand> pendingCommands,
+		@NonNull DarwinStorage darwinStorage
+	) {
+		if (pipeline == null || pendingGroup.isEmpty()) {
+			return;
+		}
+		final List<String> group = new ArrayList<>(pendingGroup);
+		pendingGroup.clear();
+		if (group.size() == 1) {
+			executeRegularly(patch, group.get(0), SqlScriptStatus.NOT_EXECUTED, policy, pendingCommands, darwinStorage);
+			return;
+		}
+		final boolean recordInAdvance = patch.isInDb() &&
+				(policy.isPerStatement() || !group.stream().allMatch(this::isDmlStatement));
+		if (recordInAdvance) {
+			writeCheckpoint(patch, pendingCommands, darwinStorage);
+			final List<SqlCommand> records = new ArrayList<>(group.size());
+			for (String sqlStatement : group) {
+				records.add(new SqlCommand(patch.getPatchId(), sqlStatement, 0, LocalDateTime.now()));
+			}
+			darwinStorage.insertSqlScriptsToDB(patch, records);
+		}
+		final List<String> sqlCommandsToExecute = new ArrayList<>(group.size());
+		for (String sqlStatement : group) {
+			sqlCommandsToExecute.add(removeCommentsFromContent(sqlStatement));
+		}
+		final long startGroup = System.currentTimeMillis();
+		final AtomicInteger failedIndex = new AtomicInteger(-1);
+		final Boolean replay;
+		try {
+			replay = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+				final Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+				int consumedResults = 0;
+				try (Statement statement = connection.createStatement()) {
+					// all results must be read so that failures of the later statements are reported
+					boolean resultSet = statement.execute(pipeline.compose(sqlCommandsToExecute));
+					consumedResults++;
+					while (consumedResults < sqlCommandsToExecute.size() && (resultSet || statement.getUpdateCount() != -1)) {
+						resultSet = statement.getMoreResults();
+						consumedResults++;
+					}
+					return false;
+				} catch (SQLException ex) {
+					failedIndex.set(pipeline.getFailedIndex(ex, consumedResults));
+					if (failedIndex.get() < 0 && savepoint != null) {
+						if (rollbackToSavepoint(connection, savepoint)) {
+							log.warn("Pipelined call failed, executing its statements one by one: " + ex.getMessage());
+							return true;
+						} else if (!pipeline.recognizesFailedStatement()) {
+							// only the last statement of the group may have committed the transaction
+							failedIndex.set(sqlCommandsToExecute.size() - 1);
+						}
+					}
+					throw ex;
+				}
+			});
+		} catch (final DataAccessException ex) {
+			final int failed = failedIndex.get() < group.size() ? failedIndex.get() : -1;
+			if (log.isErrorEnabled()) {
+				log.error(
+						failed >= 0 ?
+								"Failed to execute script: " + group.get(failed) :
+								"Failed to execute pipelined statements, all of them will be executed again when " +
+										"the patch is resumed:\n" + String.join(";\n", group),
+						ex
+				);
+			}
+			if (patch.isInDb()) {
+				final long processTime = System.currentTimeMillis() - startGroup;
+				recordFailureAfterRollback(
+						() -> {
+							if (recordInAdvance) {
+								// records of the statements before the failing one were committed or rolled back
+								// together with them, the other ones might have been committed by an earlier statement
+								for (int i = Math.max(failed, 0); i < group.size(); i++) {
+									darwinStorage.updateSqlScriptInDB(
+											patch, new SqlCommand(patch.getPatchId(),
+													group.get(i), i == failed ? processTime : 0,
+													null, i == failed ? ex : null)
+									);
+								}
+							} else {
+								// group of DML statements was rolled back as a whole
+								if (failed >= 0) {
+									darwinStorage.insertSqlScriptToDB(
+											patch, new SqlCommand(patch.getPatchId(),
+													group.get(failed), processTime,
+													null, ex)
+									);
+								}
+							}
+						}
+				);
+			}
+			throw ex;
+		}
+		if (Boolean.TRUE.equals(replay)) {
+			// records inserted in advance survived the rollback to the savepoint, but they are not committed yet -
+			// failure of DML statement rolls them back and it must be recorded again after the transaction is rolled
+			// back, other statements may commit them and their failure is recorded the same way as usual
+			for (int i = 0; i < group.size(); i++) {
+				if (recordInAdvance && !isDmlStatement(group.get(i))) {
+					executeRecordedInAdvance(patch, group, i, darwinStorage);
+				} else {
+					final SqlCommand executedCommand = executeSqlCommandWithoutRecord(patch, group.get(i), darwinStorage);
+					if (patch.isInDb() && !recordInAdvance) {
+						pendingCommands.add(executedCommand);
+					}
+				}
+			}
+			if (pendingCommands.size() >= policy.getStatementCount()) {
+				writeCheckpoint(patch, pendingCommands, darwinStorage);
+			}
+		} else if (patch.isInDb() && !recordInAdvance) {
+			final long processTime = (System.currentTimeMillis() - startGroup) / group.size();
+			final LocalDateTime finishedOn = LocalDateTime.now();
+			for (String sqlStatement : group) {
+				pendingCommands.add(new SqlCommand(patch.getPatchId(), sqlStatement, processTime, finishedOn));
+			}
+			if (pendingCommands.size() >= policy.getStatementCount()) {
+				writeCheckpoint(patch, pendingCommands, darwinStorage);
+			}
+		}
+	}
+
+    /**
+     * Executes statement of the group recorded in advance. The statement may commit the records of the statements
+     * following it in the group - when it fails, their records are reset together with the record of the failing one.
+     */
+    private void executeRecordedInAdvance(
+		@NonNull Patch patch,
+		@NonNull List<String> group,
+		int index,
+		@NonNull DarwinStorage darwinStorage
+	) {
+		try {
+			executeSqlCommand(patch, group.get(index), darwinStorage, SqlScriptStatus.EXECUTED_FAILED);
+		} catch (final DataAccessException ex) {
+			recordFailureAfterRollback(
+					() -> {
+						for (int i = index + 1; i < group.size(); i++) {
+							darwinStorage.updateSqlScriptInDB(
+									patch, new SqlCommand(patch.getPatchId(), group.get(i), 0, null, null)
+							);
+						}
+					}
+			);
+			throw ex;
+		}
+	}
+
+    /**
+     * Executes single statement and records it according to the checkpoint policy. Statements other than DML may commit
+     * the transaction implicitly - the pending records are therefore written before such statement and the statement
+     * itself is recorded in advance regardless of the policy, so that the implicit commit never persists executed
+     * statements without their records.
+     */
+    private void executeRegularly(
+		@NonNull Patch patch,
+		@NonNull String sqlStatement,
+		@NonNull SqlScriptStatus executionStatus,
+		@NonNull CheckpointPolicy policy,
+		@NonNull List<SqlCommand> pendingCommands,
+		@NonNull DarwinStorage darwinStorage
+	) {
+		if (policy.isPerStatement() || !patch.isInDb() || executionStatus == SqlScriptStatus.EXECUTED_FAILED ||
+				!isDmlStatement(sqlStatement)) {
+			writeCheckpoint(patch, pendingCommands, darwinStorage);
+			executeSqlCommand(patch, sqlStatement, darwinStorage, executionStatus);
+		} else {
+			pendingCommands.add(executeSqlCommandWithoutRecord(patch, sqlStatement, darwinStorage));
+			if (pendingCommands.size() >= policy.getStatementCount()) {
+				writeCheckpoint(patch, pendingCommands, darwinStorage);
+			}
+		}
+	}
+
+    /**
+     * Rolls the transaction back to the savepoint. Returns false if the savepoint no longer exists because
+     * the transaction was committed implicitly meanwhile.
+     */
+    private static boolean rollbackToSavepoint(@NonNull Connection connection, @NonNull Savepoint savepoint) {
+		try {
+			connection.rollback(savepoint);
+			return true;
+		} catch (SQLException ex) {
+			log.debug("Cannot roll back to savepoint: " + ex.getMessage());
+			return false;
+		}
+	}
+
+    /**
+     * Returns index of the statement that failed the batch. Drivers report either the update counts of the statements
+     * executed before the failing one or {@link Statement#EXECUTE_FAILED} for the failing statements. When the driver
+     * provides no such information, the first statement of the batch is considered failing.
+     */
+    private static int getFailedStatementIndex(@NonNull BatchUpdateException ex, int batchSize) {
+		final int[] updateCounts = ex.getUpdateCounts();
+		if (updateCounts != null) {
+			for (int i = 0; i < updateCounts.length && i < batchSize; i++) {
+				if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+					return i;
+				}
+			}
+			if (updateCounts.length < batchSize) {
+				return updateCounts.length;
+			}
+		}
+		return 0;
+	}
+
+    /**
+     * Returns true if the statement manipulates data only and may be executed in JDBC batch.
+     */
+    private boolean isDmlStatement(@NonNull String sqlCommand) {
+		final String sqlCommandToExecute = removeCommentsFromContent(sqlCommand);
+		return sqlCommandToExecute != null && DML_STATEMENT.matcher(sqlCommandToExecute).find();
+	}
+
+    /**
+     * Executes single SQL command without recording it in the database. Returned command is recorded later with
+     * the next checkpoint. If the command fails only the failure is recorded after the transaction is rolled back -
+     * the commands executed since the last checkpoint will be executed again when the patch is resumed.
+     */
+    @SuppressWarnings("SqlSourceToSinkFlow")
+    @Nullable
+    private SqlCommand executeSqlCommandWithoutRecord(
+		@NonNull Patch patch,
+		@NonNull String sqlStatement,
+		@NonNull DarwinStorage darwinStorage
+	) {
+        final long startScript = System.currentTimeMillis();
+        try {
+            jdbcTemplate.execute(removeCommentsFromContent(sqlStatement));
+            return patch.isInDb() ?
+		            new SqlCommand(patch.getPatchId(), sqlStatement, System.currentTimeMillis() - startScript, LocalDateTime.now()) :
+		            null;
+        } catch (final DataAccessException ex) {
+            if (log.isErrorEnabled()) {
+                log.error("Failed to execute script: " + sqlStatement, ex);
+            }
+            if (patch.isInDb()) {
+	            recordFailureAfterRollback(
+			            () -> darwinStorage.insertSqlScriptToDB(
+					            patch, new SqlCommand(patch.getPatchId(),
+							            sqlStatement, System.currentTimeMillis() - startScript,
+							            null, ex)
+			            )
+	            );
+            }
+            throw ex;
+        }
+    }
+
     /**
      * Executes single SQL command.
      */
@@ -147,35 +658,43 @@ public class DefaultDatabaseStorageUpdater extends AbstractDatabaseStorage imple
                 log.error("Failed to execute script: " + sqlStatement, ex);
             }
             if (patch.isInDb()) {
-            	// we have to make this update in separate transaction after this one finishes
-	            // otherwise connection ends up in deadlock state
-	            TransactionSynchronizationManager.registerSynchronization(
-			            new TransactionSynchronization() {
-				            @Override
-				            public void afterCompletion(int status) {
-				            	if (status == STATUS_ROLLED_BACK) {
-				            		TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
-				            		txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
-				            		txTemplate.execute(new TransactionCallbackWithoutResult() {
-							            @Override
-							            protected void doInTransactionWithoutResult(TransactionStatus status) {
-								            darwinStorage.updateSqlScriptInDB(
-										            patch, new SqlCommand(patch.getPatchId(),
-												            sqlStatement, System.currentTimeMillis() - startScript,
-												            null, ex)
-								            );
-							            }
-						            });
-					            }
-				            }
-			            }
+	            recordFailureAfterRollback(
+			            () -> darwinStorage.updateSqlScriptInDB(
+					            patch, new SqlCommand(patch.getPatchId(),
+							            sqlStatement, System.currentTimeMillis() - startScript,
+							            null, ex)
+			            )
 	            );
-
             }
             throw ex;
         }
     }
 
+    /**
+     * Records the failure of the statement in separate transaction after the current one is rolled back.
+     */
+    private void recordFailureAfterRollback(@NonNull Runnable failureRecorder) {
+	    // we have to make this update in separate transaction after this one finishes
+	    // otherwise connection ends up in deadlock state
+	    TransactionSynchronizationManager.registerSynchronization(
+			    new TransactionSynchronization() {
+				    @Override
+				    public void afterCompletion(int status) {
+					    if (status == STATUS_ROLLED_BACK) {
+						    TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+						    txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+						    txTemplate.execute(new TransactionCallbackWithoutResult() {
+							    @Override
+							    protected void doInTransactionWithoutResult(TransactionStatus status) {
+								    failureRecorder.run();
+							    }
+						    });
+					    }
+				    }
+			    }
+	    );
+    }
+
 	/**
 	 * Removes comments from content
 	 *
@@ -186,9 +705,9 @@ public class DefaultDatabaseStorageUpdater extends AbstractDatabaseStorage imple
 		if(content==null) {
 			return null;
 		}
-		String processed = Pattern.compile("^\\s*+#.+?$", Pattern.MULTILINE).matcher(content).replaceAll("");
-		processed = Pattern.compile("^\\s*+--.+?$", Pattern.MULTILINE).matcher(processed).replaceAll("");
-		processed = Pattern.compile("^\\s*+/\\*.+?\\*/", Pattern.DOTALL | Pattern.MULTILINE).matcher(processed).replaceAll("");
+		String processed = HASH_COMMENT.matcher(content).replaceAll("");
+		processed = DASH_COMMENT.matcher(processed).replaceAll("");
+		processed = BLOCK_COMMENT.matcher(processed).replaceAll("");
 		return processed;
 	}
 
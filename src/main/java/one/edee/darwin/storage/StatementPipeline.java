@@ -0,0 +1,140 @@
+package one.edee.darwin.storage;
+
+import lombok.NonNull;
+import one.edee.darwin.model.Platform;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Composes several already tokenized SQL statements into single call to the database so that the statements don't pay
+ * network round trip each. Composition depends on the platform - MySQL (requires `allowMultiQueries=true` in JDBC URL)
+ * and H2 accept statements separated by semicolon, Oracle executes them in anonymous PL/SQL block.
+ */
+abstract class StatementPipeline {
+	private static final Pattern PROCEDURAL_STATEMENT = Pattern.compile(
+			"^\\s*(?:BEGIN|DECLARE|DELIMITER)\\b", Pattern.CASE_INSENSITIVE
+	);
+
+	/**
+	 * Returns pipeline for the platform or null if the platform doesn't support pipelining.
+	 */
+	@Nullable
+	static StatementPipeline forPlatform(@Nullable Platform platform) {
+		if (platform == Platform.MYSQL) {
+			// MySQL stops at the failing statement and reports it while its result is read
+			return new MultiStatementPipeline(true);
+		} else if (platform == Platform.H2) {
+			// H2 reports the failure of any statement from the first result
+			return new MultiStatementPipeline(false);
+		} else if (platform == Platform.ORACLE) {
+			return new AnonymousBlockPipeline();
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns true if the statement may be executed together with other statements. Procedural code may contain
+	 * semicolons and is always executed alone.
+	 */
+	boolean accepts(@NonNull String sqlStatement) {
+		return sqlStatement.indexOf(';') < 0 && !PROCEDURAL_STATEMENT.matcher(sqlStatement).find();
+	}
+
+	/**
+	 * Composes the statements into single SQL call.
+	 */
+	@NonNull
+	abstract String compose(@NonNull List<String> sqlStatements);
+
+	/**
+	 * Returns index of the statement that failed the call or -1 if it cannot be recognized.
+	 *
+	 * @param ex exception thrown by the call
+	 * @param consumedResults count of the results read from the call before the exception was thrown
+	 */
+	abstract int getFailedIndex(@NonNull Exception ex, int consumedResults);
+
+	/**
+	 * Returns true if the pipeline recognizes the failing statement even if the statements before it committed
+	 * the transaction implicitly. Groups of other pipelines must end with the first statement that may commit
+	 * implicitly, so that the rollback to the savepoint taken before the call is possible whenever the failing
+	 * statement is unknown.
+	 */
+	abstract boolean recognizesFailedStatement();
+
+	/**
+	 * Statements separated by semicolon. Each statement produces one result, so when the driver reports the failure
+	 * while the results are being read, the count of the results already read is the index of the failing statement.
+	 * Failure reported by the first result is ambiguous - the call might have been refused as a whole.
+	 */
+	private static class MultiStatementPipeline extends StatementPipeline {
+		private final boolean reportsFailurePerResult;
+
+		MultiStatementPipeline(boolean reportsFailurePerResult) {
+			this.reportsFailurePerResult = reportsFailurePerResult;
+		}
+
+		@NonNull
+		@Override
+		String compose(@NonNull List<String> sqlStatements) {
+			return String.join(";\n", sqlStatements);
+		}
+
+		@Override
+		int getFailedIndex(@NonNull Exception ex, int consumedResults) {
+			return consumedResults > 0 ? consumedResults : -1;
+		}
+
+		@Override
+		boolean recognizesFailedStatement() {
+			return reportsFailurePerResult;
+		}
+
+	}
+
+	/**
+	 * Statements executed by `EXECUTE IMMEDIATE` in anonymous block. The block counts executed statements
+	 * and reports the count in the message of the re-raised exception.
+	 */
+	private static class AnonymousBlockPipeline extends StatementPipeline {
+		private static final String FAILURE_MESSAGE = "Darwin pipeline failed after statements: ";
+		private static final Pattern FAILURE_PATTERN = Pattern.compile(FAILURE_MESSAGE + "(\\d+)");
+
+		@NonNull
+		@Override
+		String compose(@NonNull List<String> sqlStatements) {
+			final StringBuilder block = new StringBuilder("DECLARE\n  darwin_executed PLS_INTEGER := 0;\nBEGIN\n");
+			for (int i = 0; i < sqlStatements.size(); i++) {
+				block.append("  EXECUTE IMMEDIATE '").append(sqlStatements.get(i).replace("'", "''")).append("';\n")
+						.append("  darwin_executed := ").append(i + 1).append(";\n");
+			}
+			return block
+					.append("EXCEPTION\n  WHEN OTHERS THEN\n")
+					.append("    RAISE_APPLICATION_ERROR(-20999, '").append(FAILURE_MESSAGE).append("' || darwin_executed, TRUE);\n")
+					.append("END;")
+					.toString();
+		}
+
+		@Override
+		int getFailedIndex(@NonNull Exception ex, int consumedResults) {
+			for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+				final Matcher matcher = cause.getMessage() == null ? null : FAILURE_PATTERN.matcher(cause.getMessage());
+				if (matcher != null && matcher.find()) {
+					return Integer.parseInt(matcher.group(1));
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		boolean recognizesFailedStatement() {
+			return true;
+		}
+
+	}
+
+}
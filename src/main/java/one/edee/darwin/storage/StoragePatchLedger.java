@@ -0,0 +1,56 @@
+package one.edee.darwin.storage;
+
+import lombok.NonNull;
+import one.edee.darwin.model.Patch;
+import one.edee.darwin.model.PatchLedger;
+import one.edee.darwin.model.Platform;
+import org.springframework.lang.Nullable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Patch ledger of the {@link DarwinStorage} implementations that cannot load all patches of the component at once.
+ * Patches that were not registered to the ledger are looked up in the storage one by one, the same way as before
+ * the ledger was introduced.
+ */
+class StoragePatchLedger extends PatchLedger {
+	private final DarwinStorage darwinStorage;
+
+	StoragePatchLedger(@NonNull DarwinStorage darwinStorage, @NonNull String componentName, @NonNull Platform platform) {
+		super(componentName, platform);
+		this.darwinStorage = darwinStorage;
+	}
+
+	@Nullable
+	@Override
+	public Patch getPatch(@NonNull String patchName) {
+		final Patch registeredPatch = super.getPatch(patchName);
+		if (registeredPatch != null || !isRecorded(patchName)) {
+			return registeredPatch;
+		}
+		return darwinStorage.getPatchByResourcePath(getResourcePath(patchName), getComponentName());
+	}
+
+	@Override
+	public boolean isRecorded(@NonNull String patchName) {
+		return super.isRecorded(patchName) ||
+				darwinStorage.isPatchRecordedByResourcePath(getResourcePath(patchName), getComponentName());
+	}
+
+	@Override
+	public boolean isFinished(@NonNull String patchName) {
+		return super.isFinished(patchName) ||
+				darwinStorage.isPatchFinishedInDb(new Patch(patchName, getComponentName(), getPlatform(), LocalDateTime.now()));
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return super.isEmpty() && !darwinStorage.isAnyPatchRecordedFor(getComponentName());
+	}
+
+	@NonNull
+	private String getResourcePath(@NonNull String patchName) {
+		return getPlatform().getFolderName() + "/" + patchName;
+	}
+
+}
@@ -1,6 +1,7 @@
 package one.edee.darwin.storage;
 
 import lombok.NonNull;
+import one.edee.darwin.model.PreparedPatch;
 
 /**
  * Contains method for updating components storage.
@@ -24,4 +25,22 @@ public interface StorageUpdater {
         @NonNull StorageChecker storageChecker
     );
 
+    /**
+     * Executes a script prepared in advance (see {@link one.edee.darwin.resources.PatchPrefetcher}). Implementations
+     * that cannot work with the prepared statements execute the script from its resource.
+     *
+     * @param preparedPatch the script read and split to the statements in advance; must not be null
+     * @param componentName the unique name of the component for which the script is executed; must not be null
+     * @param darwinStorage the storage handler for managing database operations and versioning; must not be null
+     * @param storageChecker the utility to validate storage version and schema compatibility; must not be null
+     */
+    default void executeScript(
+        @NonNull PreparedPatch preparedPatch,
+        @NonNull String componentName,
+        @NonNull DarwinStorage darwinStorage,
+        @NonNull StorageChecker storageChecker
+    ) {
+        executeScript(preparedPatch.getResourcePath(), componentName, darwinStorage, storageChecker);
+    }
+
 }
@@ -0,0 +1 @@
+select count(*) from INFORMATION_SCHEMA.INDEXES where INDEX_NAME = 'IX_DARWIN_SQL_PATCH_HASH';
\ No newline at end of file
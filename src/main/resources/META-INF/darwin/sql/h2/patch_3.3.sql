@@ -0,0 +1 @@
+CREATE INDEX IX_DARWIN_SQL_PATCH_HASH ON DARWIN_SQL (patchId, statementHash);
\ No newline at end of file
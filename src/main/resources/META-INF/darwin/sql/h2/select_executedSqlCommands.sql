@@ -0,0 +1 @@
+select statementHash, finishedOn from DARWIN_SQL where patchId = ?;
\ No newline at end of file
@@ -0,0 +1 @@
+SELECT fingerprint FROM DARWIN;
\ No newline at end of file
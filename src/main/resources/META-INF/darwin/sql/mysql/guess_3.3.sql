@@ -0,0 +1 @@
+SELECT count(*) FROM information_schema.statistics WHERE table_schema = database() AND table_name = 'DARWIN_SQL' AND index_name = 'IX_DARWIN_SQL_PATCH_HASH';
\ No newline at end of file
@@ -0,0 +1 @@
+ALTER TABLE DARWIN ADD fingerprint VARCHAR(64) NULL;
\ No newline at end of file
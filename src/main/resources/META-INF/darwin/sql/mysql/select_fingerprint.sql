@@ -0,0 +1 @@
+SELECT fingerprint FROM DARWIN WHERE component = ?;
\ No newline at end of file
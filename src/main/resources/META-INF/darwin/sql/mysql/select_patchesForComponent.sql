@@ -0,0 +1 @@
+SELECT * FROM DARWIN_PATCH WHERE componentName = ? AND platform = ?;
\ No newline at end of file
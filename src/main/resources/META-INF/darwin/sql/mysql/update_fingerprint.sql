@@ -0,0 +1 @@
+UPDATE DARWIN SET fingerprint = ? WHERE component = ?;
\ No newline at end of file
@@ -0,0 +1 @@
+select fingerprint from DARWIN;
\ No newline at end of file
@@ -0,0 +1 @@
+select count(*) from user_indexes where index_name = 'IX_DARWIN_SQL_PATCH_HASH';
\ No newline at end of file
@@ -0,0 +1 @@
+ALTER TABLE DARWIN ADD fingerprint VARCHAR2(64) NULL;
\ No newline at end of file
@@ -0,0 +1 @@
+SELECT statementHash, finishedOn FROM DARWIN_SQL WHERE patchId = ?;
\ No newline at end of file
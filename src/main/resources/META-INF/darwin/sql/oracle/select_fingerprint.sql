@@ -0,0 +1 @@
+select fingerprint from DARWIN where component = ?;
\ No newline at end of file
@@ -0,0 +1 @@
+update DARWIN set fingerprint = ? where component = ?;
\ No newline at end of file
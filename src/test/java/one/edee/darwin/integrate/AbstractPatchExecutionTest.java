@@ -0,0 +1,81 @@
+package one.edee.darwin.integrate;
+
+import one.edee.darwin.AbstractDarwinTest;
+import one.edee.darwin.DarwinBuilder;
+import one.edee.darwin.spring.DarwinConfiguration;
+import one.edee.darwin.utils.DarwinTestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+
+/**
+ * Shared fixture of the tests verifying how the statements of `patch_1.1.sql` are executed and recorded. Tests evolve
+ * single component from the scripts placed in the sub folders of the fixture directory, the tables created
+ * by the scripts are dropped together with Darwin tables after each test.
+ */
+@ContextConfiguration(
+		classes = {
+				DarwinConfiguration.class
+		}
+)
+@DirtiesContext
+public abstract class AbstractPatchExecutionTest extends AbstractDarwinTest {
+	@Autowired private ApplicationContext applicationContext;
+	private final String componentName;
+	private final String fixtureDirectory;
+	private final String[] createdTables;
+
+	protected AbstractPatchExecutionTest(String componentName, String fixtureDirectory, String... createdTables) {
+		this.componentName = componentName;
+		this.fixtureDirectory = fixtureDirectory;
+		this.createdTables = createdTables;
+	}
+
+	@AfterEach
+	public void tearDown() {
+		DarwinTestHelper.deleteAllInfrastructuralPages(getJdbcTemplate());
+		for (String table : createdTables) {
+			try {
+				getJdbcTemplate().execute("DROP TABLE " + table);
+			} catch (BadSqlGrammarException ignored) {
+				// table was not created
+			}
+		}
+	}
+
+	/**
+	 * Returns builder of Darwin evolving the component from the scripts in the folder of the fixture directory.
+	 */
+	protected DarwinBuilder createDarwin(String version, String folder) {
+		return createDarwinForResourcePath(version, "classpath:/META-INF/darwin/sql-test/" + fixtureDirectory + "/" + folder + "/");
+	}
+
+	/**
+	 * Returns builder of Darwin evolving the component from the scripts placed in the resource path.
+	 */
+	protected DarwinBuilder createDarwinForResourcePath(String version, String resourcePath) {
+		return new DarwinBuilder(applicationContext, componentName, version).withResourcePath(resourcePath);
+	}
+
+	/**
+	 * Returns count of the rows in the table, the table name may be followed by WHERE clause.
+	 */
+	protected int countRows(String tableWithCondition) {
+		return getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM " + tableWithCondition, Integer.class);
+	}
+
+	/**
+	 * Returns count of the statements of `patch_1.1.sql` recorded in DARWIN_SQL (aliased as S) matching the condition.
+	 */
+	protected int countRecordedStatements(String condition) {
+		return getJdbcTemplate().queryForObject(
+				"SELECT COUNT(*) FROM DARWIN_SQL S JOIN DARWIN_PATCH P ON P.id = S.patchId " +
+						"WHERE P.componentName = ? AND P.patchName = 'patch_1.1.sql' AND " + condition,
+				Integer.class, componentName
+		);
+	}
+
+}
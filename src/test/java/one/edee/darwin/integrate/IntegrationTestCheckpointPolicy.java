@@ -0,0 +1,66 @@
+package one.edee.darwin.integrate;
+
+import one.edee.darwin.storage.CheckpointPolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.BadSqlGrammarException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifies that patches are recorded and resumed at the granularity of the configured {@link CheckpointPolicy}.
+ */
+public abstract class IntegrationTestCheckpointPolicy extends AbstractPatchExecutionTest {
+
+	protected IntegrationTestCheckpointPolicy() {
+		super("checkpoint_test", "checkpoint", "CHECKPOINT_TEST", "CHECKPOINT_DDL");
+	}
+
+	@Test
+	public void IntegrationTest_PerPatchCheckpoint_AllStatementsAreRecorded() {
+		createDarwin("1.0", "correct").build().evolve();
+		createDarwin("1.1", "correct").withCheckpointPolicy(CheckpointPolicy.PER_PATCH).build().evolve();
+
+		assertEquals(5, countRows("CHECKPOINT_TEST"));
+		assertEquals(5, countRecordedStatements("S.finishedOn IS NOT NULL"));
+		assertEquals(0, countRecordedStatements("S.finishedOn IS NULL"));
+	}
+
+	@Test
+	public void IntegrationTest_FailedPatchWithCoarseCheckpoint_IsResumedFromLastCheckpoint() {
+		createDarwin("1.0", "broken").build().evolve();
+		assertThrows(
+				BadSqlGrammarException.class,
+				() -> createDarwin("1.1", "broken").withCheckpointPolicy("patch_1.1.sql", CheckpointPolicy.every(2)).build().evolve()
+		);
+
+		// checkpoint was rolled back together with the statements it recorded
+		assertEquals(0, countRows("CHECKPOINT_TEST"));
+		assertEquals(0, countRecordedStatements("S.finishedOn IS NOT NULL"));
+
+		createDarwin("1.1", "correct").withCheckpointPolicy("patch_1.1.sql", CheckpointPolicy.every(2)).build().evolve();
+
+		assertEquals(5, countRows("CHECKPOINT_TEST"));
+		assertEquals(5, countRecordedStatements("S.finishedOn IS NOT NULL"));
+	}
+
+	@Test
+	public void IntegrationTest_DdlInPatchWithCoarseCheckpoint_IsRecordedBeforeItsImplicitCommit() {
+		createDarwin("1.0", "ddl-broken").build().evolve();
+		assertThrows(
+				BadSqlGrammarException.class,
+				() -> createDarwin("1.1", "ddl-broken").withCheckpointPolicy("patch_1.1.sql", CheckpointPolicy.PER_PATCH).build().evolve()
+		);
+
+		// DDL statement committed the statements before it - checkpoint was forced so that they're recorded as well
+		assertEquals(2, countRows("CHECKPOINT_TEST"));
+		assertEquals(3, countRecordedStatements("S.finishedOn IS NOT NULL"));
+
+		createDarwin("1.1", "ddl-correct").withCheckpointPolicy("patch_1.1.sql", CheckpointPolicy.PER_PATCH).build().evolve();
+
+		assertEquals(4, countRows("CHECKPOINT_TEST"));
+		assertEquals(0, countRows("CHECKPOINT_DDL"));
+		assertEquals(5, countRecordedStatements("S.finishedOn IS NOT NULL"));
+	}
+
+}
@@ -0,0 +1,79 @@
+package one.edee.darwin.integrate;
+
+import one.edee.darwin.model.Platform;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies that compressed patches are identified by their names without compression suffix, so that compressing
+ * already applied patch doesn't apply it again.
+ */
+public abstract class IntegrationTestCompressedPatch extends AbstractPatchExecutionTest {
+	@TempDir Path scriptDirectory;
+
+	protected IntegrationTestCompressedPatch() {
+		super("compressed_test", "compressed", "COMPRESSED_TEST");
+	}
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		writeScript("create.sql", "CREATE TABLE COMPRESSED_TEST (id INT NOT NULL);", false);
+		writeScript("patch_1.1.sql", "INSERT INTO COMPRESSED_TEST (id) VALUES (1);", false);
+	}
+
+	@Test
+	public void IntegrationTest_RecompressedAppliedPatch_IsNotAppliedAgain() throws IOException {
+		evolve("1.1");
+		assertEquals(1, countRows("COMPRESSED_TEST"));
+
+		deleteScript("patch_1.1.sql");
+		writeScript("patch_1.1.sql.gz", "INSERT INTO COMPRESSED_TEST (id) VALUES (1);", true);
+		evolve("1.1");
+
+		assertEquals(1, countRows("COMPRESSED_TEST"));
+		assertEquals(1, countRows("DARWIN_PATCH WHERE componentName = 'compressed_test' AND patchName LIKE 'patch_1.1%'"));
+	}
+
+	@Test
+	public void IntegrationTest_CompressedPatch_IsRecordedWithoutSuffix() throws IOException {
+		evolve("1.1");
+		writeScript("patch_1.2.sql.gz", "INSERT INTO COMPRESSED_TEST (id) VALUES (2);", true);
+		evolve("1.2");
+
+		assertEquals(2, countRows("COMPRESSED_TEST"));
+		assertEquals(1, countRows("DARWIN_PATCH WHERE componentName = 'compressed_test' AND patchName = 'patch_1.2.sql'"));
+	}
+
+	private void evolve(String version) {
+		createDarwinForResourcePath(version, scriptDirectory.toUri().toString()).build().evolve();
+	}
+
+	private void writeScript(String fileName, String contents, boolean compressed) throws IOException {
+		for (Platform platform : Platform.values()) {
+			final Path platformDirectory = scriptDirectory.resolve(platform.getFolderName());
+			Files.createDirectories(platformDirectory);
+			try (final OutputStream os = compressed ?
+					new GZIPOutputStream(Files.newOutputStream(platformDirectory.resolve(fileName))) :
+					Files.newOutputStream(platformDirectory.resolve(fileName))) {
+				os.write(contents.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	private void deleteScript(String fileName) throws IOException {
+		for (Platform platform : Platform.values()) {
+			Files.delete(scriptDirectory.resolve(platform.getFolderName()).resolve(fileName));
+		}
+	}
+
+}
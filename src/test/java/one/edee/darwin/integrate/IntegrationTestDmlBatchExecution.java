@@ -0,0 +1,51 @@
+package one.edee.darwin.integrate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifies that consecutive DML statements are executed in JDBC batches and their failures are recorded per statement.
+ */
+public abstract class IntegrationTestDmlBatchExecution extends AbstractPatchExecutionTest {
+
+	protected IntegrationTestDmlBatchExecution() {
+		super("batch_test", "batch", "BATCH_TEST");
+	}
+
+	@Test
+	public void IntegrationTest_DmlStatementsAroundDdl_AreExecutedInOrder() {
+		createDarwin("1.0", "correct").build().evolve();
+		createDarwin("1.1", "correct").withDmlBatchSize(10).build().evolve();
+
+		assertEquals(3, countRows("BATCH_TEST"));
+		assertEquals(2, countRows("BATCH_TEST WHERE note IS NOT NULL"));
+		assertEquals(5, countRecordedStatements("S.finishedOn IS NOT NULL"));
+	}
+
+	@Test
+	public void IntegrationTest_FailingStatementInBatch_IsRecordedAndPatchIsResumed() {
+		createDarwin("1.0", "broken").build().evolve();
+		assertThrows(
+				DataAccessException.class,
+				() -> createDarwin("1.1", "broken").withDmlBatchSize(10).build().evolve()
+		);
+
+		assertEquals(0, countRows("BATCH_TEST"));
+		// only DDL statement recorded before the batch survived its implicit commit
+		assertEquals(1, countRecordedStatements("S.finishedOn IS NOT NULL"));
+		// failure is recorded for the third statement of the batch, not for the batch as a whole
+		assertEquals(1, countRecordedStatements("S.finishedOn IS NULL AND S.statement LIKE '%''c''%'"));
+		assertEquals(0, countRecordedStatements("S.statement LIKE '%''a''%'"));
+
+		createDarwin("1.1", "fixed").withDmlBatchSize(10).build().evolve();
+
+		assertEquals(3, countRows("BATCH_TEST"));
+		assertEquals(0, countRows("BATCH_TEST WHERE note IS NOT NULL"));
+		// DDL statement was skipped and the data statements were executed once
+		assertEquals(4, countRecordedStatements("S.finishedOn IS NOT NULL"));
+	}
+
+}
@@ -0,0 +1,104 @@
+package one.edee.darwin.integrate;
+
+import one.edee.darwin.model.Platform;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies that evolution is skipped when the patch set of the component matches the fingerprint stored
+ * by the last successful evolution and that any added or changed script makes Darwin check the patches again.
+ * Patch records are removed behind Darwin's back so that skipped check is distinguishable from the full one.
+ */
+public abstract class IntegrationTestFingerprintCheck extends AbstractPatchExecutionTest {
+	@TempDir Path scriptDirectory;
+
+	protected IntegrationTestFingerprintCheck() {
+		super("fingerprint_test", "fingerprint", "FINGERPRINT_TEST");
+	}
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		writeScript("create.sql", "CREATE TABLE FINGERPRINT_TEST (id INT NOT NULL);");
+		writeScript("patch_1.1.sql", "INSERT INTO FINGERPRINT_TEST (id) VALUES (1);");
+	}
+
+	@Test
+	public void IntegrationTest_UnchangedPatchSet_SkipsFullCheck() {
+		evolve(true);
+		assertEquals(1, countRows("FINGERPRINT_TEST"));
+
+		forgetPatch("patch_1.1.sql");
+		evolve(true);
+		assertEquals(1, countRows("FINGERPRINT_TEST"));
+
+		// full check notices the forgotten patch and applies it again
+		evolve(false);
+		assertEquals(2, countRows("FINGERPRINT_TEST"));
+	}
+
+	@Test
+	public void IntegrationTest_AddedPatch_IsEvolved() throws IOException {
+		evolve(true);
+		assertEquals(1, countRows("FINGERPRINT_TEST"));
+
+		writeScript("patch_1.0.1.sql", "INSERT INTO FINGERPRINT_TEST (id) VALUES (2);");
+		evolve(true);
+		assertEquals(1, countRows("FINGERPRINT_TEST WHERE id = 2"));
+	}
+
+	@Test
+	public void IntegrationTest_ChangedPatchOfSameSizeAndTimestamp_IsEvolved() throws IOException {
+		evolve(true);
+		assertEquals(1, countRows("FINGERPRINT_TEST"));
+
+		forgetPatch("patch_1.1.sql");
+		rewriteScriptKeepingTimestamp("patch_1.1.sql", "INSERT INTO FINGERPRINT_TEST (id) VALUES (3);");
+		evolve(true);
+		assertEquals(1, countRows("FINGERPRINT_TEST WHERE id = 3"));
+	}
+
+	private void evolve(boolean fingerprintCheck) {
+		createDarwinForResourcePath("1.1", scriptDirectory.toUri().toString())
+				.withFingerprintCheck(fingerprintCheck)
+				.build()
+				.evolve();
+	}
+
+	private void forgetPatch(String patchName) {
+		getJdbcTemplate().update(
+				"DELETE FROM DARWIN_SQL WHERE patchId IN (SELECT id FROM DARWIN_PATCH WHERE componentName = ? AND patchName = ?)",
+				"fingerprint_test", patchName
+		);
+		getJdbcTemplate().update(
+				"DELETE FROM DARWIN_PATCH WHERE componentName = ? AND patchName = ?",
+				"fingerprint_test", patchName
+		);
+	}
+
+	private void writeScript(String fileName, String contents) throws IOException {
+		for (Platform platform : Platform.values()) {
+			final Path platformDirectory = scriptDirectory.resolve(platform.getFolderName());
+			Files.createDirectories(platformDirectory);
+			Files.write(platformDirectory.resolve(fileName), contents.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private void rewriteScriptKeepingTimestamp(String fileName, String contents) throws IOException {
+		for (Platform platform : Platform.values()) {
+			final Path script = scriptDirectory.resolve(platform.getFolderName()).resolve(fileName);
+			final FileTime lastModified = Files.getLastModifiedTime(script);
+			Files.write(script, contents.getBytes(StandardCharsets.UTF_8));
+			Files.setLastModifiedTime(script, lastModified);
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+package one.edee.darwin.integrate;
+
+import one.edee.darwin.exception.ProcessIsLockedException;
+import one.edee.darwin.locker.Locker;
+import one.edee.darwin.resources.DefaultResourceAccessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies that the process lock is leased only when there is some work for the component.
+ */
+public abstract class IntegrationTestLockFreeCheck extends AbstractPatchExecutionTest {
+	@Autowired private ApplicationContext applicationContext;
+	private CountingLocker locker;
+
+	protected IntegrationTestLockFreeCheck() {
+		super("lock_free_test", "checkpoint", "CHECKPOINT_TEST");
+	}
+
+	@BeforeEach
+	public void setUp() {
+		locker = new CountingLocker();
+		locker.setResourceAccessor(new DefaultResourceAccessor(applicationContext, "UTF-8", "classpath:/META-INF/darwin/sql/"));
+		locker.setApplicationContext(applicationContext);
+		locker.afterPropertiesSet();
+	}
+
+	@Test
+	public void IntegrationTest_UpToDateComponent_IsCheckedWithoutLease() {
+		createDarwin("1.0", "correct").build().evolve();
+		createDarwin("1.1", "correct").build().evolve();
+
+		createDarwin("1.1", "correct").withLocker(locker).withFingerprintCheck(false).build().evolve();
+
+		assertEquals(0, locker.getLeases());
+	}
+
+	@Test
+	public void IntegrationTest_PendingPatch_IsAppliedUnderLease() {
+		createDarwin("1.0", "correct").build().evolve();
+
+		createDarwin("1.1", "correct").withLocker(locker).withFingerprintCheck(false).build().evolve();
+
+		assertEquals(1, locker.getLeases());
+		assertEquals(5, countRows("CHECKPOINT_TEST"));
+		assertEquals(5, countRecordedStatements("S.finishedOn IS NOT NULL"));
+	}
+
+	/**
+	 * Locker counting the leases of the processes.
+	 */
+	private static class CountingLocker extends Locker {
+		private final AtomicInteger leases = new AtomicInteger();
+
+		@Override
+		public String leaseProcess(String processName, LocalDateTime until) throws ProcessIsLockedException {
+			leases.incrementAndGet();
+			return super.leaseProcess(processName, until);
+		}
+
+		int getLeases() {
+			return leases.get();
+		}
+
+	}
+
+}
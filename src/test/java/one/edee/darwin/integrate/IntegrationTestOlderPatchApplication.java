@@ -3,6 +3,7 @@ package one.edee.darwin.integrate;
 import one.edee.darwin.AbstractDarwinTest;
 import one.edee.darwin.Darwin;
 import one.edee.darwin.model.Patch;
+import one.edee.darwin.model.PatchLedger;
 import one.edee.darwin.model.Platform;
 import one.edee.darwin.model.SchemaVersion;
 import one.edee.darwin.resources.ResourceAccessorForTest;
@@ -21,6 +22,9 @@ import java.time.LocalDateTime;
 
 import static one.edee.darwin.utils.DarwinTestHelper.assertPatchFinishedInDb;
 import static one.edee.darwin.utils.DarwinTestHelper.assertPatchNotPresentInDb;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 /**
@@ -60,6 +64,14 @@ public abstract class IntegrationTestOlderPatchApplication extends AbstractDarwi
 
 		//check patch was retrospectively applied
 		assertPatchFinishedInDb(darwinStorage, oldPatch);
+
+		//check patch is part of the component ledger as well
+		final PatchLedger ledger = darwinStorage.getPatchLedger("darwin", platform);
+		assertTrue(ledger.isFinished(oldPatch.getPatchName()));
+		assertFalse(ledger.isRecorded("patch_999.sql"));
+
+		//check fingerprint of the applied patch set was stored
+		assertNotNull(darwinStorage.getFingerprintForComponent("darwin"));
 	}
 
 	@AfterEach
@@ -0,0 +1,267 @@
+package one.edee.darwin.integrate;
+
+import one.edee.darwin.AbstractDarwinTest;
+import one.edee.darwin.Darwin;
+import one.edee.darwin.DarwinBuilder;
+import one.edee.darwin.DarwinOrchestrator;
+import one.edee.darwin.exception.ProcessIsLockedException;
+import one.edee.darwin.locker.Locker;
+import one.edee.darwin.model.EvolutionReport;
+import one.edee.darwin.model.EvolutionReport.Status;
+import one.edee.darwin.resources.DefaultResourceAccessor;
+import one.edee.darwin.resources.DefaultResourceMatcher;
+import one.edee.darwin.resources.ResourceMatcher;
+import one.edee.darwin.spring.DarwinConfiguration;
+import one.edee.darwin.storage.DefaultDatabaseDarwinStorage;
+import one.edee.darwin.utils.DarwinTestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies evolution of multiple components respecting their mutual dependencies.
+ */
+@ContextConfiguration(
+		classes = {
+				DarwinConfiguration.class
+		}
+)
+@DirtiesContext
+public abstract class IntegrationTestOrchestratedEvolution extends AbstractDarwinTest {
+	@Autowired private ApplicationContext applicationContext;
+
+	@Test
+	public void IntegrationTest_IndependentAndDependentComponents_AreAllEvolved() {
+		final DarwinOrchestrator orchestrator = new DarwinOrchestrator();
+		orchestrator.setParallelism(2);
+		final EvolutionReport report = orchestrator.evolve(
+				Arrays.asList(
+						createDarwin("orchestrator_second", "second").withDependsOn("orchestrator_first").build(),
+						createDarwin("orchestrator_first", "first").build()
+				)
+		);
+
+		assertTrue(report.isSuccessful());
+		assertEquals(2, report.getResults().size());
+		assertEquals("orchestrator_first", report.getResults().get(0).getComponentName());
+		assertTrue(tableExists("ORCHESTRATOR_FIRST"));
+		assertTrue(tableExists("ORCHESTRATOR_SECOND"));
+	}
+
+	@Test
+	public void IntegrationTest_ComponentsOfTheSameDataSource_ShareInfrastructure() {
+		final ResourceMatcher resourceMatcher = new DefaultResourceMatcher();
+		final Darwin first = createDarwin("orchestrator_first", "first").build();
+		final Darwin second = createDarwin("orchestrator_second", "second").withResourceMatcher(resourceMatcher).build();
+		final EvolutionReport report = new DarwinOrchestrator().evolve(Arrays.asList(first, second));
+
+		assertTrue(report.isSuccessful());
+		assertNotNull(first.getDarwinStorage());
+		assertNotSame(first.getDarwinStorage(), second.getDarwinStorage());
+		final DefaultDatabaseDarwinStorage secondStorage = (DefaultDatabaseDarwinStorage) second.getDarwinStorage();
+		assertSame(resourceMatcher, secondStorage.getResourceMatcher());
+		assertSame(second.getTransactionManager(), secondStorage.getTransactionManager());
+		assertSame(first.getLocker(), second.getLocker());
+		assertNotSame(first.getStorageChecker(), second.getStorageChecker());
+		assertEquals(
+				first.getStorageChecker().existPatchAndSqlTable(),
+				second.getStorageChecker().existPatchAndSqlTable()
+		);
+	}
+
+	@Test
+	public void IntegrationTest_BatchLease_CoversAllComponentsAndIsReleased() {
+		final DarwinOrchestrator orchestrator = new DarwinOrchestrator();
+		orchestrator.setBatchLease(true);
+		final EvolutionReport report = orchestrator.evolve(
+				Arrays.asList(
+						createDarwin("orchestrator_second", "second").withDependsOn("orchestrator_first").build(),
+						createDarwin("orchestrator_first", "first").build()
+				)
+		);
+
+		assertTrue(report.isSuccessful());
+		assertTrue(tableExists("ORCHESTRATOR_FIRST"));
+		assertTrue(tableExists("ORCHESTRATOR_SECOND"));
+		assertEquals(
+				Integer.valueOf(0),
+				getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM DARWIN_LOCK WHERE processName = 'darwin:batch'", Integer.class)
+		);
+	}
+
+	@Test
+	public void IntegrationTest_BatchLeasedByAnotherNode_EvolutionWaitsForIt() throws Exception {
+		// evolves darwin infrastructure including the lock table
+		createDarwin("orchestrator_first", "first").build().evolve();
+		final Darwin second = createDarwin("orchestrator_second", "second").build();
+		second.initDefaults();
+		final String processName = "darwin:batch";
+		final String unlockKey = second.getLocker().leaseProcess(processName, LocalDateTime.now().plusMinutes(1));
+		try {
+			final DarwinOrchestrator orchestrator = new DarwinOrchestrator();
+			orchestrator.setBatchLease(true);
+			orchestrator.setBatchLeaseTimeoutInSeconds(1);
+			assertThrows(IllegalStateException.class, () -> orchestrator.evolve(Collections.singletonList(second)));
+			assertFalse(tableExists("ORCHESTRATOR_SECOND"));
+		} finally {
+			second.getLocker().releaseProcess(processName, unlockKey);
+		}
+	}
+
+	@Test
+	public void IntegrationTest_ComponentLockedByAnotherNode_FollowerReturnsOnceEvolved() throws Exception {
+		// evolves darwin infrastructure including the lock table
+		new DarwinBuilder(applicationContext, Darwin.DARWIN_COMPONENT_NAME, Darwin.DARWIN_COMPONENT_VERSION)
+				.withResourcePath("classpath:/META-INF/darwin/sql/")
+				.build()
+				.evolve();
+		final Darwin follower = createDarwin("orchestrator_first", "first").withLockTimeout(30, 200L).build();
+		follower.initDefaults();
+		final String processName = "orchestrator_first:darwinProcess";
+		final String unlockKey = follower.getLocker().leaseProcess(processName, LocalDateTime.now().plusMinutes(1));
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final Future<?> followerEvolution = executor.submit(follower::evolve);
+			Thread.sleep(500);
+			assertFalse(followerEvolution.isDone());
+
+			// leader evolves the component while holding the lock
+			final Locker leaderLocker = new Locker() {
+				@Override
+				public String leaseProcess(String leasedProcessName, LocalDateTime until) {
+					return unlockKey;
+				}
+
+				@Override
+				public void releaseProcess(String releasedProcessName, String releasedUnlockKey) {
+					// lock is released by the test
+				}
+			};
+			createDarwin("orchestrator_first", "first").withLocker(leaderLocker).build().evolve();
+
+			followerEvolution.get(10, TimeUnit.SECONDS);
+			assertTrue(tableExists("ORCHESTRATOR_FIRST"));
+		} finally {
+			executor.shutdownNow();
+			follower.getLocker().releaseProcess(processName, unlockKey);
+		}
+	}
+
+	@Test
+	public void IntegrationTest_BatchLeaseLost_RemainingComponentsAreNotStarted() {
+		final Locker locker = new Locker() {
+			@Override
+			public String leaseProcess(String processName, LocalDateTime until) throws ProcessIsLockedException {
+				if ("orchestrator_first:darwinProcess".equals(processName)) {
+					// keeps the first component running until the renewal of the batch lease fails
+					try {
+						Thread.sleep(2000L);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return super.leaseProcess(processName, until);
+			}
+
+			@Override
+			public void renewLease(String processName, String unlockKey, LocalDateTime until) throws ProcessIsLockedException {
+				throw new ProcessIsLockedException("Lease was taken over by another node.");
+			}
+		};
+		locker.setResourceAccessor(new DefaultResourceAccessor(applicationContext, "UTF-8", "classpath:/META-INF/darwin/sql/"));
+		locker.setApplicationContext(applicationContext);
+		locker.afterPropertiesSet();
+
+		final DarwinOrchestrator orchestrator = new DarwinOrchestrator();
+		orchestrator.setBatchLease(true);
+		orchestrator.setBatchLeaseDurationInSeconds(1);
+		assertThrows(
+				IllegalStateException.class,
+				() -> orchestrator.evolve(
+						Arrays.asList(
+								createDarwin("orchestrator_second", "second").withDependsOn("orchestrator_first").withLocker(locker).build(),
+								createDarwin("orchestrator_first", "first").withLocker(locker).build()
+						)
+				)
+		);
+		assertTrue(tableExists("ORCHESTRATOR_FIRST"));
+		assertFalse(tableExists("ORCHESTRATOR_SECOND"));
+	}
+
+	@Test
+	public void IntegrationTest_ComponentFails_DependentComponentIsSkipped() {
+		final DarwinOrchestrator orchestrator = new DarwinOrchestrator();
+		orchestrator.setFailOnError(false);
+		final EvolutionReport report = orchestrator.evolve(
+				Arrays.asList(
+						createDarwin("orchestrator_broken", "broken").build(),
+						createDarwin("orchestrator_second", "second").withDependsOn("orchestrator_broken").build(),
+						createDarwin("orchestrator_first", "first").build()
+				)
+		);
+
+		assertFalse(report.isSuccessful());
+		assertEquals(Status.FAILED, report.getResult("orchestrator_broken").getStatus());
+		assertEquals(Status.SKIPPED, report.getResult("orchestrator_second").getStatus());
+		assertEquals(Status.FINISHED, report.getResult("orchestrator_first").getStatus());
+		assertFalse(tableExists("ORCHESTRATOR_SECOND"));
+	}
+
+	@Test
+	public void IntegrationTest_CyclicDependencies_AreRejected() {
+		final DarwinOrchestrator orchestrator = new DarwinOrchestrator();
+		assertThrows(
+				IllegalStateException.class,
+				() -> orchestrator.evolve(
+						Arrays.asList(
+								createDarwin("orchestrator_first", "first").withDependsOn("orchestrator_second").build(),
+								createDarwin("orchestrator_second", "second").withDependsOn("orchestrator_first").build()
+						)
+				)
+		);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		DarwinTestHelper.deleteAllInfrastructuralPages(getJdbcTemplate());
+		dropTable("ORCHESTRATOR_SECOND");
+		dropTable("ORCHESTRATOR_FIRST");
+		dropTable("ORCHESTRATOR_BROKEN");
+	}
+
+	private DarwinBuilder createDarwin(String componentName, String folder) {
+		return new DarwinBuilder(applicationContext, componentName, "1.0")
+				.withOrchestrated(true)
+				.withResourcePath("classpath:/META-INF/darwin/sql-test/orchestrator/" + folder + "/");
+	}
+
+	private boolean tableExists(String tableName) {
+		try {
+			getJdbcTemplate().execute("SELECT * FROM " + tableName);
+			return true;
+		} catch (BadSqlGrammarException ex) {
+			return false;
+		}
+	}
+
+	private void dropTable(String tableName) {
+		if (tableExists(tableName)) {
+			getJdbcTemplate().execute("DROP TABLE " + tableName);
+		}
+	}
+
+}
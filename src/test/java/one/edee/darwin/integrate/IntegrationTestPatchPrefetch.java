@@ -0,0 +1,42 @@
+package one.edee.darwin.integrate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.BadSqlGrammarException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifies that patches prepared on background thread are executed and recorded the same way as patches read
+ * during execution.
+ */
+public abstract class IntegrationTestPatchPrefetch extends AbstractPatchExecutionTest {
+
+	protected IntegrationTestPatchPrefetch() {
+		super("prefetch_test", "checkpoint", "CHECKPOINT_TEST");
+	}
+
+	@Test
+	public void IntegrationTest_PrefetchedPatch_IsExecutedAndRecorded() {
+		createDarwin("1.0", "correct").withPatchPrefetch(1).build().evolve();
+		createDarwin("1.1", "correct").withPatchPrefetch(1).build().evolve();
+
+		assertEquals(5, countRows("CHECKPOINT_TEST"));
+		assertEquals(5, countRecordedStatements("S.finishedOn IS NOT NULL"));
+	}
+
+	@Test
+	public void IntegrationTest_FailedPrefetchedPatch_IsResumed() {
+		createDarwin("1.0", "broken").withPatchPrefetch(1).build().evolve();
+		assertThrows(
+				BadSqlGrammarException.class,
+				() -> createDarwin("1.1", "broken").withPatchPrefetch(1).build().evolve()
+		);
+
+		createDarwin("1.1", "correct").withPatchPrefetch(1).build().evolve();
+
+		assertEquals(5, countRows("CHECKPOINT_TEST"));
+		assertEquals(5, countRecordedStatements("S.finishedOn IS NOT NULL"));
+	}
+
+}
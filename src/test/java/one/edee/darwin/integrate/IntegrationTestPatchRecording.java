@@ -0,0 +1,55 @@
+package one.edee.darwin.integrate;
+
+import one.edee.darwin.Darwin;
+import one.edee.darwin.storage.DarwinStorage;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies that records of the patches are written only when the patches are really applied.
+ */
+public abstract class IntegrationTestPatchRecording extends AbstractPatchExecutionTest {
+
+	protected IntegrationTestPatchRecording() {
+		super("recording_test", "checkpoint", "CHECKPOINT_TEST");
+	}
+
+	@Test
+	public void IntegrationTest_StartupWithNothingToApply_InsertsNoPatchRecord() {
+		createDarwin("1.0", "correct").build().evolve();
+		createDarwin("1.1", "correct").build().evolve();
+		final int recordedPatches = countRows("DARWIN_PATCH");
+
+		final Darwin darwin = createDarwin("1.1", "correct").withFingerprintCheck(false).build();
+		darwin.initDefaults();
+		final AtomicInteger patchInserts = new AtomicInteger();
+		darwin.setDarwinStorage(countPatchInserts(darwin.getDarwinStorage(), patchInserts));
+		darwin.evolve();
+
+		assertEquals(0, patchInserts.get());
+		assertEquals(recordedPatches, countRows("DARWIN_PATCH"));
+	}
+
+	private static DarwinStorage countPatchInserts(DarwinStorage darwinStorage, AtomicInteger patchInserts) {
+		return (DarwinStorage) Proxy.newProxyInstance(
+				DarwinStorage.class.getClassLoader(),
+				new Class<?>[]{DarwinStorage.class},
+				(proxy, method, args) -> {
+					if ("insertPatchToDatabase".equals(method.getName())) {
+						patchInserts.incrementAndGet();
+					}
+					try {
+						return method.invoke(darwinStorage, args);
+					} catch (InvocationTargetException ex) {
+						throw ex.getTargetException();
+					}
+				}
+		);
+	}
+
+}
@@ -0,0 +1,91 @@
+package one.edee.darwin.integrate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifies that consecutive statements are executed in pipelined calls and their failures are recorded per statement.
+ */
+public abstract class IntegrationTestPipelinedExecution extends AbstractPatchExecutionTest {
+
+	protected IntegrationTestPipelinedExecution() {
+		super("pipeline_test", "pipeline", "PIPELINE_TEST", "PIPELINE_SECOND", "PIPELINE_THIRD");
+	}
+
+	@Test
+	public void IntegrationTest_DdlAndDmlStatements_AreExecutedInOrder() {
+		createDarwin("1.0", "correct").build().evolve();
+		createDarwin("1.1", "correct").withPipelineSize(10).build().evolve();
+
+		assertEquals(3, countRows("PIPELINE_TEST"));
+		assertEquals(2, countRows("PIPELINE_TEST WHERE note IS NOT NULL"));
+		assertEquals(0, countRows("PIPELINE_SECOND"));
+		assertEquals(6, countRecordedStatements("S.finishedOn IS NOT NULL"));
+	}
+
+	@Test
+	public void IntegrationTest_FailingDmlStatementInPipelinedCall_IsRecognizedAndPatchIsResumed() {
+		createDarwin("1.0", "broken").build().evolve();
+		assertThrows(
+				DataAccessException.class,
+				() -> createDarwin("1.1", "broken").withPipelineSize(10).build().evolve()
+		);
+
+		// the call was rolled back to its savepoint and replayed one by one to find the failing statement
+		assertEquals(0, countRows("PIPELINE_TEST"));
+		assertEquals(1, countRecordedStatements("S.finishedOn IS NOT NULL"));
+		assertEquals(1, countRecordedStatements("S.finishedOn IS NULL AND S.statement LIKE '%''c''%'"));
+
+		createDarwin("1.1", "fixed").withPipelineSize(10).build().evolve();
+
+		assertEquals(3, countRows("PIPELINE_TEST"));
+		assertEquals(4, countRecordedStatements("S.finishedOn IS NOT NULL"));
+	}
+
+	@Test
+	public void IntegrationTest_DdlFailingAfterCommittedDdl_IsResumed() {
+		createDarwin("1.0", "ddl-after-ddl-broken").build().evolve();
+		assertThrows(
+				DataAccessException.class,
+				() -> createDarwin("1.1", "ddl-after-ddl-broken").withPipelineSize(10).build().evolve()
+		);
+
+		// statements committed by the first DDL statement stay recorded, the failing one is recorded as failed
+		assertEquals(1, countRows("PIPELINE_TEST"));
+		assertEquals(0, countRows("PIPELINE_SECOND"));
+		assertEquals(2, countRecordedStatements("S.finishedOn IS NOT NULL"));
+		assertEquals(1, countRecordedStatements("S.finishedOn IS NULL AND S.statement LIKE 'CREATE TABLE PIPELINE_TEST%'"));
+
+		createDarwin("1.1", "ddl-after-ddl-fixed").withPipelineSize(10).build().evolve();
+
+		assertEquals(2, countRows("PIPELINE_TEST"));
+		assertEquals(0, countRows("PIPELINE_THIRD"));
+		assertEquals(4, countRecordedStatements("S.finishedOn IS NOT NULL"));
+	}
+
+	@Test
+	public void IntegrationTest_DdlFailingAtTheEndOfPipelinedCall_IsResumed() {
+		createDarwin("1.0", "ddl-after-dml-broken").build().evolve();
+		assertThrows(
+				DataAccessException.class,
+				() -> createDarwin("1.1", "ddl-after-dml-broken").withPipelineSize(10).build().evolve()
+		);
+
+		// whether the failing DDL statement committed the data statement before it or not, its record shares its fate
+		assertEquals(
+				countRows("PIPELINE_TEST"),
+				countRecordedStatements("S.finishedOn IS NOT NULL AND S.statement LIKE 'INSERT%'")
+		);
+		assertEquals(0, countRecordedStatements("S.finishedOn IS NOT NULL AND S.statement LIKE 'CREATE TABLE PIPELINE_TEST%'"));
+
+		createDarwin("1.1", "ddl-after-dml-fixed").withPipelineSize(10).build().evolve();
+
+		assertEquals(3, countRows("PIPELINE_TEST"));
+		assertEquals(0, countRows("PIPELINE_THIRD"));
+		assertEquals(5, countRecordedStatements("S.finishedOn IS NOT NULL"));
+	}
+
+}
@@ -6,6 +6,7 @@ import one.edee.darwin.Darwin;
 import one.edee.darwin.model.Patch;
 import one.edee.darwin.model.Platform;
 import one.edee.darwin.model.SchemaVersion;
+import one.edee.darwin.model.SqlCommandLedger;
 import one.edee.darwin.resources.ResourceAccessorForTest;
 import one.edee.darwin.spring.DarwinConfiguration;
 import one.edee.darwin.storage.DarwinStorage;
@@ -25,6 +26,8 @@ import java.time.LocalDateTime;
 
 import static one.edee.darwin.utils.DarwinTestHelper.assertPatchHasExceptionStored;
 import static one.edee.darwin.utils.DarwinTestHelper.assertPatchNotFinishedInDb;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -72,6 +75,13 @@ public abstract class IntegrationTestRecoveringAfterPartiallyAppliedPatch extend
 		//verify that the exception from broken patch is correctly written to the database
 		assertPatchHasExceptionStored(darwinStorage, brokenPatch);
 
+		//statements of the broken patch are loaded by single query with their hashes
+		final Patch recordedPatch = darwinStorage.getPatchLedger("darwin", platform).getPatch("patch_1.5.sql");
+		assertNotNull(recordedPatch);
+		final SqlCommandLedger sqlCommandLedger = darwinStorage.getSqlCommandLedger(recordedPatch.getPatchId());
+		assertFalse(sqlCommandLedger.isEmpty());
+		assertFalse(sqlCommandLedger.isUnhashedStatementPresent());
+
 		//switch resource path to the folder where the same patch has correct contents
 	    resourceAccessor4Test.setResourcePathForPatch("/META-INF/darwin/sql-test/" + platform.getFolderName() + "EstablishmentAfterFailSql/withRightSql/");
 
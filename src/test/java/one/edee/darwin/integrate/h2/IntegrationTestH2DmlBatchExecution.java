@@ -0,0 +1,11 @@
+package one.edee.darwin.integrate.h2;
+
+import one.edee.darwin.integrate.IntegrationTestDmlBatchExecution;
+import org.springframework.context.annotation.Profile;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles(value = "H2")
+@Profile(value = "H2")
+public class IntegrationTestH2DmlBatchExecution extends IntegrationTestDmlBatchExecution {
+
+}
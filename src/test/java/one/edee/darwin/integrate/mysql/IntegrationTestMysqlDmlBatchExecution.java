@@ -0,0 +1,11 @@
+package one.edee.darwin.integrate.mysql;
+
+import one.edee.darwin.integrate.IntegrationTestDmlBatchExecution;
+import org.springframework.context.annotation.Profile;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles(value = "MYSQL")
+@Profile(value = "MYSQL")
+public class IntegrationTestMysqlDmlBatchExecution extends IntegrationTestDmlBatchExecution {
+
+}
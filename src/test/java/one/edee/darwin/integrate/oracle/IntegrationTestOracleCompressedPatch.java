@@ -0,0 +1,11 @@
+package one.edee.darwin.integrate.oracle;
+
+import one.edee.darwin.integrate.IntegrationTestCompressedPatch;
+import org.springframework.context.annotation.Profile;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles(value = "ORACLE")
+@Profile(value = "ORACLE")
+public class IntegrationTestOracleCompressedPatch extends IntegrationTestCompressedPatch {
+
+}
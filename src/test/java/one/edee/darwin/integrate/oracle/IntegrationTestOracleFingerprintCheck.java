@@ -0,0 +1,11 @@
+package one.edee.darwin.integrate.oracle;
+
+import one.edee.darwin.integrate.IntegrationTestFingerprintCheck;
+import org.springframework.context.annotation.Profile;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles(value = "ORACLE")
+@Profile(value = "ORACLE")
+public class IntegrationTestOracleFingerprintCheck extends IntegrationTestFingerprintCheck {
+
+}
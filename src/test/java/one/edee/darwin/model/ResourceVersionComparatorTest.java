@@ -4,6 +4,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
@@ -20,6 +23,7 @@ public class ResourceVersionComparatorTest {
     final Resource patch_1_0_1 = new FileSystemResource("patch_1.0.1.sql");
     final Resource patch_1_0_2 = new FileSystemResource("patch_1.0.2.sql");
     final Resource patch_1_0_11 = new FileSystemResource("patch_1.0.11.sql");
+    final Resource patch_1_0_2_gz = new FileSystemResource("patch_1.0.2.sql.gz");
 
     final Resource guess_1_0_1 = new FileSystemResource("guess_1.0.1.sql");
     final Resource guess_1_1_0 = new FileSystemResource("guess_1.1.0.sql");
@@ -38,6 +42,10 @@ public class ResourceVersionComparatorTest {
 		assertEquals(1,resourceVersionComparator.compare(patch_1_0_11,patch_1_0_1));
 		assertEquals(0,resourceVersionComparator.compare(patch_1_0_1,patch_1_0_1));
 
+		assertEquals(0,resourceVersionComparator.compare(patch_1_0_2,patch_1_0_2_gz));
+		assertEquals(-1,resourceVersionComparator.compare(patch_1_0_2_gz,patch_1_0_11));
+		assertEquals(1,resourceVersionComparator.compare(patch_1_0_2_gz,patch_1_0_1));
+
 		assertEquals(-1,resourceVersionComparator.compare(create,lock_delete));
 		assertEquals(1,resourceVersionComparator.compare(lock_delete,create));
 		assertEquals(-1,resourceVersionComparator.compare(create,insert));
@@ -48,4 +56,16 @@ public class ResourceVersionComparatorTest {
 		assertEquals(1,resourceVersionComparator.compare(guess_1_1_0,guess_1_0_1));
 		assertEquals(-1,resourceVersionComparator.compare(guess_1_0_1,guess_1_1_0));
 	}
+
+	@Test
+	public void testSortMatchesComparator() {
+		final Resource[] resources = {
+				guess_1_1_0, patch_1_0_11, lock_delete, patch_1_0_2_gz, create,
+				patch_1_0_1, insert, guess_1_0_1, patch_1_0_2
+		};
+		final Resource[] expected = resources.clone();
+		Arrays.sort(expected, resourceVersionComparator);
+		resourceVersionComparator.sort(resources);
+		assertArrayEquals(expected, resources);
+	}
 }
@@ -3,6 +3,7 @@ package one.edee.darwin.model.version;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 /**
  * Version descriptor parse test.
@@ -24,6 +25,17 @@ public class VersionDescriptorTest {
 
 		version = "1.0.0.a.b1278";
 		checkParse(version, "1.a.b1278");
+
+		version = "1.2147483648";
+		checkParse(version, "1.2147483648");
+		assertFalse(new VersionDescriptor(version).isNumeric(1));
+	}
+
+	@Test
+	public void testVersionPartsAreAddedToCopy() {
+		final VersionDescriptor version = new VersionDescriptor("1.2");
+		assertEquals("1.2.3.beta", version.withNumericVersion(3).withAlphanumericVersion("beta").toString());
+		assertEquals("1.2", version.toString());
 	}
 
 	@Test
@@ -0,0 +1,73 @@
+package one.edee.darwin.resources;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies caching, eviction and statistics of {@link CachingResourceAccessor}.
+ */
+public class CachingResourceAccessorTest {
+	private final DefaultResourceAccessor delegate = new DefaultResourceAccessor(
+			new DefaultResourceLoader(), "UTF-8", "classpath:/META-INF/darwin/sql-test/upgrade/"
+	);
+
+	@Test
+	public void shouldServeRepeatedLookupsFromCache() {
+		final CachingResourceAccessor accessor = new CachingResourceAccessor(delegate);
+		final String content = accessor.getTextContentFromResource("mysql/guess.sql");
+		assertEquals(delegate.getTextContentFromResource("mysql/guess.sql"), content);
+		assertSame(content, accessor.getTextContentFromResource("mysql/guess.sql"));
+
+		final List<String> statements = accessor.getTokenizedSQLScriptContentFromResource("mysql/alter-insert.sql");
+		assertEquals(delegate.getTokenizedSQLScriptContentFromResource("mysql/alter-insert.sql"), statements);
+		statements.clear();
+		assertEquals(4, accessor.getTokenizedSQLScriptContentFromResource("mysql/alter-insert.sql").size());
+
+		assertEquals(2, accessor.getHitCount());
+		assertEquals(2, accessor.getMissCount());
+		assertTrue(accessor.getSizeInBytes() > 0);
+
+		accessor.invalidate();
+		assertEquals(0, accessor.getSizeInBytes());
+		accessor.getTextContentFromResource("mysql/guess.sql");
+		assertEquals(3, accessor.getMissCount());
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedContentsWhenSizeIsExceeded() {
+		final long guessSize = 2L * delegate.getTextContentFromResource("mysql/guess.sql").length();
+		final long versionSize = 2L * delegate.getTextContentFromResource("mysql/version.sql").length();
+		final CachingResourceAccessor accessor = new CachingResourceAccessor(delegate, guessSize + versionSize);
+
+		accessor.getTextContentFromResource("mysql/guess.sql");
+		accessor.getTextContentFromResource("mysql/version.sql");
+		assertEquals(guessSize + versionSize, accessor.getSizeInBytes());
+
+		// guess.sql was used more recently than version.sql
+		accessor.getTextContentFromResource("mysql/guess.sql");
+		accessor.getTextContentFromResource("mysql/guess_1.1.sql");
+		assertTrue(accessor.getSizeInBytes() <= guessSize + versionSize);
+		final long misses = accessor.getMissCount();
+		accessor.getTextContentFromResource("mysql/guess.sql");
+		assertEquals(misses, accessor.getMissCount());
+		accessor.getTextContentFromResource("mysql/version.sql");
+		assertEquals(misses + 1, accessor.getMissCount());
+	}
+
+	@Test
+	public void shouldNotCacheMissingOrOversizedContents() {
+		final CachingResourceAccessor accessor = new CachingResourceAccessor(delegate, 16);
+		assertNull(accessor.getTextContentFromResource("mysql/notExisting.sql"));
+		assertNotNull(accessor.getTextContentFromResource("mysql/procedure.sql"));
+		assertEquals(0, accessor.getSizeInBytes());
+		accessor.getTextContentFromResource("mysql/notExisting.sql");
+		accessor.getTextContentFromResource("mysql/procedure.sql");
+		assertEquals(0, accessor.getHitCount());
+		assertEquals(4, accessor.getMissCount());
+	}
+
+}
@@ -0,0 +1,149 @@
+package one.edee.darwin.resources;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link ClasspathResourceIndex}.
+ */
+class ClasspathResourceIndexTest {
+	private final ClassLoader classLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+	private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+
+	@Test
+	void shouldReturnSameResourcesAsPatternResolver() throws IOException {
+		final ClasspathResourceIndex index = new ClasspathResourceIndex(classLoader);
+		for (String[] rootAndDirectory : new String[][]{
+				{"classpath:/META-INF/darwin/sql/", "classpath:/META-INF/darwin/sql/mysql/"},
+				{"classpath*:/META-INF/darwin/sql/", "classpath*:/META-INF/darwin/sql/mysql/"},
+				{"classpath*:/META-INF/darwin/sql/", "classpath*:/META-INF/darwin/sql/h2/"},
+				{"classpath:/META-INF/darwin/sql-test/upgrade/", "classpath:/META-INF/darwin/sql-test/upgrade/h2/"},
+				{"classpath*:META-INF/darwin/sql-test/upgrade/", "classpath*:META-INF/darwin/sql-test/upgrade/mysql/"},
+				{"classpath*:/META-INF/darwin/sortedResourceTest/", "classpath*:/META-INF/darwin/sortedResourceTest/mysql/"},
+				{"classpath*:/META-INF/darwin/nonExisting/", "classpath*:/META-INF/darwin/nonExisting/mysql/"}
+		}) {
+			final String directory = rootAndDirectory[1];
+			assertArrayEquals(
+					toDescriptions(resolver.getResources(directory + "*")),
+					toDescriptions(index.getResources(rootAndDirectory[0], directory)),
+					directory
+			);
+		}
+		assertEquals(3, index.getScanCount());
+		assertTrue(index.getResources("classpath*:/META-INF/darwin/sql/", "classpath*:/META-INF/darwin/sql/h2/").length > 1);
+		assertEquals(3, index.getScanCount());
+	}
+
+	@Test
+	void shouldWalkClasspathOnceForAllRegisteredRoots() throws IOException {
+		final ClasspathResourceIndex index = new ClasspathResourceIndex(classLoader);
+		index.register("classpath*:/META-INF/darwin/sql/");
+		index.register("classpath:/META-INF/darwin/sql-test/upgrade/");
+		index.register("classpath*:/META-INF/darwin/sortedResourceTest/");
+		index.register("file:/tmp/darwin/");
+
+		for (String[] rootAndDirectory : new String[][]{
+				{"classpath*:/META-INF/darwin/sql/", "classpath*:/META-INF/darwin/sql/mysql/"},
+				{"classpath:/META-INF/darwin/sql-test/upgrade/", "classpath:/META-INF/darwin/sql-test/upgrade/h2/"},
+				{"classpath*:/META-INF/darwin/sortedResourceTest/", "classpath*:/META-INF/darwin/sortedResourceTest/mysql/"}
+		}) {
+			final String directory = rootAndDirectory[1];
+			assertArrayEquals(
+					toDescriptions(resolver.getResources(directory + "*")),
+					toDescriptions(index.getResources(rootAndDirectory[0], directory)),
+					directory
+			);
+		}
+		assertEquals(1, index.getScanCount());
+	}
+
+	@Test
+	void shouldReadJarOnceForAllRegisteredRoots(@TempDir Path tempDir) throws IOException {
+		final Path jar = tempDir.resolve("patches.jar");
+		try (final JarOutputStream os = new JarOutputStream(Files.newOutputStream(jar))) {
+			for (String entry : new String[]{
+					"META-INF/first/sql/", "META-INF/first/sql/mysql/", "META-INF/first/sql/h2/",
+					"META-INF/first/sql/mysql/create.sql", "META-INF/first/sql/mysql/patch_1.1.sql",
+					"META-INF/first/sql/h2/create.sql",
+					"META-INF/second/sql/", "META-INF/second/sql/mysql/", "META-INF/second/sql/mysql/create.sql"
+			}) {
+				os.putNextEntry(new JarEntry(entry));
+				os.closeEntry();
+			}
+		}
+		try (final URLClassLoader jarClassLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+			final PathMatchingResourcePatternResolver jarResolver = new PathMatchingResourcePatternResolver(jarClassLoader);
+			final ClasspathResourceIndex index = new ClasspathResourceIndex(jarClassLoader);
+			index.register("classpath:/META-INF/first/sql/");
+			index.register("classpath:/META-INF/second/sql/");
+			for (String directory : new String[]{
+					"classpath:/META-INF/first/sql/mysql/", "classpath:/META-INF/first/sql/h2/",
+					"classpath:/META-INF/second/sql/mysql/"
+			}) {
+				final Resource[] expected = jarResolver.getResources(directory + "*");
+				assertTrue(expected.length > 0, directory);
+				assertArrayEquals(
+						toDescriptions(expected),
+						toDescriptions(index.getResources(directory.substring(0, directory.indexOf("/sql/") + 5), directory)),
+						directory
+				);
+			}
+			assertEquals(1, index.getScanCount());
+		}
+	}
+
+	@Test
+	void shouldRefuseLocationsOutsideResourceRoot() {
+		final ClasspathResourceIndex index = new ClasspathResourceIndex(classLoader);
+		assertNull(index.getResources("file:/tmp/darwin/", "file:/tmp/darwin/mysql/"));
+		assertNull(index.getResources("classpath*:/META-INF/", "classpath*:/META-INF/*/sql/mysql/"));
+		assertNull(index.getResources("classpath*:/META-INF/darwin/sql/", "classpath*:/META-INF/services/"));
+		assertNull(index.getResources("classpath*:/", "classpath*:/META-INF/"));
+		assertEquals(0, index.getScanCount());
+	}
+
+	@Test
+	void shouldShareIndexForClassLoader() {
+		assertSame(ClasspathResourceIndex.getInstance(classLoader), ClasspathResourceIndex.getInstance(classLoader));
+	}
+
+	@Test
+	void shouldNotPreventClassLoaderFromBeingCollected() throws InterruptedException {
+		ClassLoader disposableLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+		ClasspathResourceIndex.getInstance(disposableLoader)
+				.getResources("classpath*:/META-INF/darwin/sql/", "classpath*:/META-INF/darwin/sql/h2/");
+		final WeakReference<ClassLoader> loaderReference = new WeakReference<>(disposableLoader);
+		disposableLoader = null;
+		for (int i = 0; i < 50 && loaderReference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertNull(loaderReference.get());
+	}
+
+	private static String[] toDescriptions(Resource[] resources) throws IOException {
+		final String[] result = new String[resources.length];
+		for (int i = 0; i < resources.length; i++) {
+			result[i] = resources[i].getURL().toExternalForm();
+		}
+		return result;
+	}
+
+}
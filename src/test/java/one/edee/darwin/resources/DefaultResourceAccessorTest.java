@@ -5,24 +5,32 @@ import one.edee.darwin.model.Platform;
 import one.edee.darwin.resources.DefaultResourceAccessorTest.TestConfiguration;
 import one.edee.darwin.storage.IOUtils;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.util.FileCopyUtils;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 @ActiveProfiles(value = "MYSQL")
 @Profile(value = "MYSQL")
@@ -48,6 +56,23 @@ public class DefaultResourceAccessorTest extends AbstractDarwinTest implements I
         assertTrue(content.startsWith("create table"));
     }
 
+    @Test
+    public void testSortedResourceListIsCachedUntilInvalidated() {
+        final Resource[] first = darwinResourceAccessor.getSortedResourceList(Platform.MYSQL);
+        final Resource[] second = darwinResourceAccessor.getSortedResourceList(Platform.MYSQL);
+        assertTrue(first.length > 0);
+        assertNotSame(first, second);
+        assertArrayEquals(first, second);
+        for (int i = 0; i < first.length; i++) {
+            assertSame(first[i], second[i]);
+        }
+
+        darwinResourceAccessor.invalidateCache();
+        final Resource[] third = darwinResourceAccessor.getSortedResourceList(Platform.MYSQL);
+        assertArrayEquals(first, third);
+        assertNotSame(first[0], third[0]);
+    }
+
     @Test
     public void testCommentWithSingleQuote() {
         String content = alternativeDarwinResourceAccessor.getTextContentFromResource("mysql/commented-with-single-quote.sql");
@@ -304,6 +329,65 @@ public class DefaultResourceAccessorTest extends AbstractDarwinTest implements I
         assertEquals(12185, queries.size());
     }
 
+    @Test
+    public void testStreamingTokenizerProducesSameStatements() throws Exception {
+        for (Platform platform : new Platform[] {Platform.H2, Platform.MYSQL, Platform.ORACLE}) {
+            for (Resource resource : alternativeDarwinResourceAccessor.getSortedResourceList(platform)) {
+                final String resourcePath = platform.getFolderName() + "/" + resource.getFilename();
+                final List<String> streamed = new ArrayList<>();
+                alternativeDarwinResourceAccessor.processTokenizedSQLScriptContentFromResource(resourcePath, streamed::add);
+                final List<String> expected = alternativeDarwinResourceAccessor.getTokenizedSQLScriptContentFromResource(resourcePath);
+                assertEquals(expected, streamed, resourcePath);
+
+                final List<String> written = new ArrayList<>();
+                try (final SqlStatementWriter writer = new SqlStatementWriter(written::add)) {
+                    writer.write(alternativeDarwinResourceAccessor.getTextContentFromResource(resourcePath));
+                }
+                assertEquals(expected, written, resourcePath);
+            }
+        }
+    }
+
+    @Test
+    public void testStreamingTokenizerNormalizesContent() throws Exception {
+        final String content = " \r\n-- comment;\r\ninsert into A values ('a;''b');\r;\n" +
+                "/* block; */ update A set b = \"#\";;\rdelete from A;\r\n; \n\t";
+        final List<String> streamed = new ArrayList<>();
+        try (final SqlStatementReader reader = new SqlStatementReader(new StringReader(content))) {
+            String statement;
+            while ((statement = reader.nextStatement()) != null) {
+                streamed.add(statement);
+            }
+        }
+        final String normalized = content.replace("\r\n", "\n").replace('\r', '\n').trim();
+        assertEquals(
+                darwinResourceAccessor.tokenizeSQLScriptContent(normalized.substring(0, normalized.length() - 1)),
+                streamed
+        );
+        assertEquals(2, streamed.size());
+    }
+
+    @Test
+    public void testCompressedPatchProducesSameStatements(@TempDir Path tempDir) throws Exception {
+        final Path folder = Files.createDirectories(tempDir.resolve("mysql"));
+        try (final InputStream is = new ClassPathResource("/META-INF/darwin/sql-test/upgrade/mysql/procedure.sql").getInputStream();
+             final OutputStream os = new GZIPOutputStream(Files.newOutputStream(folder.resolve("patch_2.3.sql.gz")))) {
+            FileCopyUtils.copy(is, os);
+        }
+        final DefaultResourceAccessor accessor = new DefaultResourceAccessor(
+                new DefaultResourceLoader(), "UTF-8", tempDir.toUri().toString()
+        );
+        final Resource[] resources = accessor.getSortedResourceList(Platform.MYSQL);
+        assertEquals(1, resources.length);
+        assertEquals("patch_2.3.sql.gz", resources[0].getFilename());
+
+        final List<String> streamed = new ArrayList<>();
+        accessor.processTokenizedSQLScriptContentFromResource("mysql/patch_2.3.sql.gz", streamed::add);
+        final List<String> expected = alternativeDarwinResourceAccessor.getTokenizedSQLScriptContentFromResource("mysql/procedure.sql");
+        assertEquals(expected, streamed);
+        assertEquals(expected, accessor.getTokenizedSQLScriptContentFromResource("mysql/patch_2.3.sql.gz"));
+    }
+
     @DirtiesContext
     @Test
     public void testGetSortedResourceList() throws Exception {
@@ -184,4 +184,44 @@ public class DefaultResourceMatcherTest {
         assertTrue(matcher.isResourceAcceptable(PatchType.GUESS, "guess_f.sql"));
     }
 
+    @Test
+    public void testCompressedPatches() {
+        assertTrue(matcher.isResourceAcceptable(PatchType.CREATE, "create.sql.gz"));
+        assertTrue(matcher.isResourceAcceptable(PatchType.EVOLVE, "patch_2.3.sql.gz"));
+        assertTrue(matcher.isResourceAcceptable(PatchType.EVOLVE, "patch_2.3.SQL.ZST"));
+        assertTrue(matcher.isResourceAcceptable(PatchType.GUESS, "guess_2.3.sql.zst"));
+        assertFalse(matcher.isResourceAcceptable(PatchType.EVOLVE, "patch_2.3.gz"));
+        assertFalse(matcher.isResourceAcceptable(PatchType.EVOLVE, "patch_2.3.sql.zip"));
+
+        assertEquals("2.3", matcher.getVersionFromResource(new FileSystemResource("mysql/patch_2.3.sql.gz")).toString());
+        assertEquals("2.3", matcher.getVersionFromResource(new FileSystemResource("mysql/patch_2.3.sql.zst")).toString());
+        assertEquals(
+                "2.3",
+                matcher.getVersionFromPatch(new Patch(5, "patch_2.3.sql.gz", "test", LocalDateTime.now(), Platform.MYSQL)).toString()
+        );
+
+        // compression doesn't change identity of the patch
+        assertEquals("patch_2.3.sql", matcher.getPatchNameFromResource(new FileSystemResource("mysql/patch_2.3.sql.gz")));
+        assertEquals("patch_2.3.sql", matcher.getPatchNameFromResource(new FileSystemResource("mysql/patch_2.3.sql.zst")));
+        assertArrayEquals(
+                new String[]{"mysql", "patch_2.3.sql"},
+                matcher.getPlatformAndNameFromResourcePath("mysql/patch_2.3.sql.gz")
+        );
+    }
+
+    @Test
+    public void testDescribeClassifiesPatchOnce() {
+        final ResourceDescriptor descriptor = matcher.describe("patch_2.3.sql");
+        assertEquals(PatchType.EVOLVE, descriptor.getPatchType());
+        assertEquals("2.3", descriptor.getVersion().toString());
+        assertSame(descriptor, matcher.describe("patch_2.3.sql"));
+
+        assertEquals(PatchType.CREATE, matcher.getPatchType("create.sql"));
+        assertNull(matcher.describe("create.sql").getVersion());
+        assertEquals(PatchType.GUESS, matcher.getPatchType("guess_1.5.sql"));
+        assertNull(matcher.getPatchType("lock_delete.sql"));
+        assertNull(matcher.getPatchType(""));
+        assertNull(matcher.getVersionFromPatch(new Patch(5, "lock_delete.sql", "test", LocalDateTime.now(), Platform.MYSQL)));
+    }
+
 }
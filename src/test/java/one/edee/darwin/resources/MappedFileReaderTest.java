@@ -0,0 +1,52 @@
+package one.edee.darwin.resources;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.File;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies that memory mapped reading provides the same content as reading the stream.
+ */
+public class MappedFileReaderTest {
+	@TempDir Path tempDir;
+
+	@Test
+	public void shouldDecodeMultiByteCharactersSplitBetweenWindows() throws Exception {
+		final String content = "Nejlepší časosběrný pop; 😀 žluťoučký kůň úpěl ďábelské ódy;\n";
+		final Path file = tempDir.resolve("patch.sql");
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		for (int windowSize = 16; windowSize < 40; windowSize++) {
+			try (final Reader reader = new MappedFileReader(file, StandardCharsets.UTF_8, windowSize)) {
+				assertEquals(content, FileCopyUtils.copyToString(reader));
+			}
+		}
+	}
+
+	@Test
+	public void shouldStreamSameStatementsFromMappedFile() throws Exception {
+		final File source = new ClassPathResource("META-INF/darwin/sql-test/upgrade/mysql/verylarge.sql").getFile();
+		final Path folder = Files.createDirectories(tempDir.resolve("mysql"));
+		Files.copy(source.toPath(), folder.resolve("verylarge.sql"));
+
+		final DefaultResourceAccessor accessor = new DefaultResourceAccessor(
+				new DefaultResourceLoader(), "UTF-8", tempDir.toUri().toString()
+		);
+		accessor.setMemoryMappingThreshold(0);
+		final List<String> streamed = new ArrayList<>();
+		accessor.processTokenizedSQLScriptContentFromResource("mysql/verylarge.sql", streamed::add);
+		assertEquals(accessor.getTokenizedSQLScriptContentFromResource("mysql/verylarge.sql"), streamed);
+	}
+
+}
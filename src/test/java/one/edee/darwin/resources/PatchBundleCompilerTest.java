@@ -0,0 +1,79 @@
+package one.edee.darwin.resources;
+
+import one.edee.darwin.model.Platform;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that precompiled patch bundle provides the same resources and statements as scanning and tokenizing.
+ */
+public class PatchBundleCompilerTest {
+	@TempDir Path tempDir;
+
+	@Test
+	public void shouldProvideSameResourcesAndStatementsAsScanning() throws Exception {
+		final File source = new ClassPathResource("META-INF/darwin/sql-test/upgrade").getFile();
+		final File patchFolder = tempDir.resolve("upgrade").toFile();
+		FileSystemUtils.copyRecursively(source, patchFolder);
+
+		final int bundles = new PatchBundleCompiler("UTF-8").compile(patchFolder);
+		assertTrue(bundles > 0);
+
+		final DefaultResourceAccessor scanning = new DefaultResourceAccessor(
+				new DefaultResourceLoader(), "UTF-8", "classpath:/META-INF/darwin/sql-test/upgrade/"
+		);
+		final DefaultResourceAccessor bundled = new DefaultResourceAccessor(
+				new DefaultResourceLoader(), "UTF-8", patchFolder.toURI().toString()
+		);
+		for (Platform platform : Platform.values()) {
+			final File bundleFile = new File(new File(patchFolder, platform.getFolderName()), PatchBundle.BUNDLE_FILE);
+			if (!bundleFile.exists()) {
+				continue;
+			}
+			try (final InputStream is = new FileInputStream(bundleFile)) {
+				assertNotNull(PatchBundle.read(is));
+			}
+			final Resource[] expected = scanning.getSortedResourceList(platform);
+			final Resource[] actual = bundled.getSortedResourceList(platform);
+			assertEquals(expected.length, actual.length);
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i].getFilename(), actual[i].getFilename());
+				final String resourcePath = platform.getFolderName() + "/" + expected[i].getFilename();
+				if (resourcePath.endsWith(".sql")) {
+					assertEquals(
+							scanning.getTokenizedSQLScriptContentFromResource(resourcePath),
+							bundled.getTokenizedSQLScriptContentFromResource(resourcePath)
+					);
+					assertNotNull(bundled.getPrecompiledStatements(resourcePath));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void shouldIgnoreBundleForScriptableAccessor() throws Exception {
+		final File source = new ClassPathResource("META-INF/darwin/sql-test/upgrade").getFile();
+		final File patchFolder = tempDir.resolve("scriptable").toFile();
+		FileSystemUtils.copyRecursively(source, patchFolder);
+		new PatchBundleCompiler("UTF-8").compile(patchFolder);
+
+		final ScriptableResourceAccessor accessor = new ScriptableResourceAccessor(
+				new DefaultResourceLoader(), "UTF-8", patchFolder.toURI().toString()
+		);
+		final Resource[] resources = accessor.getSortedResourceList(Platform.MYSQL);
+		assertTrue(resources.length > 0);
+		assertNull(accessor.getPrecompiledStatements("mysql/" + resources[0].getFilename()));
+	}
+
+}
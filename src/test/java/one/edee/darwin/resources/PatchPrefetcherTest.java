@@ -0,0 +1,88 @@
+package one.edee.darwin.resources;
+
+import one.edee.darwin.model.PreparedPatch;
+import one.edee.darwin.model.SqlCommandLedger;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies preparation of the patches by {@link PatchPrefetcher}.
+ */
+public class PatchPrefetcherTest {
+	private final DefaultResourceAccessor delegate = new DefaultResourceAccessor(
+			new DefaultResourceLoader(), "UTF-8", "classpath:/META-INF/darwin/sql-test/checkpoint/correct/"
+	);
+
+	@Test
+	public void shouldPrepareStatementsWithHashesInAdvance() {
+		try (final PatchPrefetcher prefetcher = new PatchPrefetcher(delegate, Arrays.asList("h2/create.sql", "h2/patch_1.1.sql"), 1)) {
+			final PreparedPatch create = prefetcher.take("h2/create.sql");
+			assertNotNull(create);
+			assertEquals(delegate.getTokenizedSQLScriptContentFromResource("h2/create.sql"), create.getStatements());
+
+			final PreparedPatch patch = prefetcher.take("h2/patch_1.1.sql");
+			assertNotNull(patch);
+			assertEquals(5, patch.getStatements().size());
+			for (int i = 0; i < patch.getStatements().size(); i++) {
+				assertEquals(SqlCommandLedger.computeHash(patch.getStatements().get(i)), patch.getStatementHashes().get(i));
+			}
+			assertNull(prefetcher.take("h2/patch_1.1.sql"));
+		}
+	}
+
+	@Test
+	public void shouldSkipPatchesThatAreNotTaken() {
+		try (final PatchPrefetcher prefetcher = new PatchPrefetcher(delegate, Arrays.asList("h2/create.sql", "h2/patch_1.1.sql"), 1)) {
+			final PreparedPatch patch = prefetcher.take("h2/patch_1.1.sql");
+			assertNotNull(patch);
+			assertEquals("h2/patch_1.1.sql", patch.getResourcePath());
+			assertNull(prefetcher.take("h2/create.sql"));
+			assertNull(prefetcher.take("h2/unknown.sql"));
+		}
+	}
+
+	@Test
+	public void shouldThrowPreparationFailureWhenPatchIsTaken() {
+		final DefaultResourceAccessor failingAccessor = new DefaultResourceAccessor(
+				new DefaultResourceLoader(), "UTF-8", "classpath:/META-INF/darwin/sql-test/checkpoint/correct/"
+		) {
+			@Override
+			public void processTokenizedSQLScriptContentFromResource(String resourcePath, Consumer<String> statementConsumer) {
+				throw new IllegalStateException("Broken resource " + resourcePath);
+			}
+		};
+		try (final PatchPrefetcher prefetcher = new PatchPrefetcher(failingAccessor, Arrays.asList("h2/create.sql", "h2/patch_1.1.sql"), 1)) {
+			final IllegalStateException ex = assertThrows(IllegalStateException.class, () -> prefetcher.take("h2/create.sql"));
+			assertEquals("Broken resource h2/create.sql", ex.getMessage());
+			// nothing is prepared after the failure, the caller reads the patch by itself
+			assertNull(prefetcher.take("h2/patch_1.1.sql"));
+		}
+	}
+
+	@Test
+	public void shouldThrowErrorOfPreparationWhenPatchIsTaken() {
+		final DefaultResourceAccessor failingAccessor = new DefaultResourceAccessor(
+				new DefaultResourceLoader(), "UTF-8", "classpath:/META-INF/darwin/sql-test/checkpoint/correct/"
+		) {
+			@Override
+			public void processTokenizedSQLScriptContentFromResource(String resourcePath, Consumer<String> statementConsumer) {
+				throw new StackOverflowError("Too deep resource " + resourcePath);
+			}
+		};
+		try (final PatchPrefetcher prefetcher = new PatchPrefetcher(failingAccessor, Arrays.asList("h2/create.sql", "h2/patch_1.1.sql"), 1)) {
+			final StackOverflowError error = assertTimeoutPreemptively(
+					Duration.ofSeconds(10),
+					() -> assertThrows(StackOverflowError.class, () -> prefetcher.take("h2/create.sql"))
+			);
+			assertEquals("Too deep resource h2/create.sql", error.getMessage());
+			assertNull(prefetcher.take("h2/patch_1.1.sql"));
+		}
+	}
+
+}
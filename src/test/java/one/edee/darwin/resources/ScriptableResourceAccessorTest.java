@@ -1,5 +1,6 @@
 package one.edee.darwin.resources;
 
+import freemarker.template.Template;
 import one.edee.darwin.AbstractDarwinTest;
 import one.edee.darwin.resources.ScriptableResourceAccessorTest.TestConfiguration;
 import org.junit.jupiter.api.Test;
@@ -7,13 +8,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ContextConfiguration(
@@ -31,6 +38,41 @@ public class ScriptableResourceAccessorTest extends AbstractDarwinTest {
 		assertTrue(content.startsWith("create table MYPREF_DARWIN"));
 	}
 
+	@Test
+	public void testStreamedStatementsOfCachedTemplateFollowVariables() {
+		final List<String> first = new ArrayList<>();
+		scriptableDbDarwinResourceAccessor.processTokenizedSQLScriptContentFromResource("mysql/scriptedCreate.sql", first::add);
+		assertEquals(scriptableDbDarwinResourceAccessor.getTokenizedSQLScriptContentFromResource("mysql/scriptedCreate.sql"), first);
+		assertEquals(1, first.size());
+		assertTrue(first.get(0).startsWith("create table MYPREF_DARWIN"));
+
+		final ScriptableResourceAccessor otherTenant = new ScriptableResourceAccessor(
+				new DefaultResourceLoader(), "UTF-8", "classpath:/META-INF/darwin/sql-test/upgrade/"
+		);
+		for (String prefix : Arrays.asList("A_", "B_", "A_")) {
+			otherTenant.setVars(Collections.singletonMap("tablePrefix", prefix));
+			final List<String> statements = new ArrayList<>();
+			otherTenant.processTokenizedSQLScriptContentFromResource("mysql/scriptedCreate.sql", statements::add);
+			assertTrue(statements.get(0).startsWith("create table " + prefix + "DARWIN"));
+			otherTenant.processTokenizedSQLScriptContentFromResource("mysql/alter-insert.sql", statements::add);
+		}
+	}
+
+	@Test
+	public void testCompiledTemplatesAreSharedAmongAccessors() throws Exception {
+		final ScriptableResourceAccessor otherTenant = new ScriptableResourceAccessor(
+				new DefaultResourceLoader(), "UTF-8", "classpath:/META-INF/darwin/sql-test/upgrade/"
+		);
+		otherTenant.setVars(Collections.singletonMap("tablePrefix", "OTHER_"));
+		final String text = new DefaultResourceAccessor(
+				new DefaultResourceLoader(), "UTF-8", "classpath:/META-INF/darwin/sql-test/upgrade/"
+		).getTextContentFromResource("mysql/scriptedCreate.sql");
+		scriptableDbDarwinResourceAccessor.getTextContentFromResource("mysql/scriptedCreate.sql");
+		final Template template = ScriptableResourceAccessor.getTemplate("mysql/scriptedCreate.sql", text);
+		assertTrue(otherTenant.getTextContentFromResource("mysql/scriptedCreate.sql").startsWith("create table OTHER_DARWIN"));
+		assertSame(template, ScriptableResourceAccessor.getTemplate("mysql/scriptedCreate.sql", text));
+	}
+
 	@Configuration
 	public static class TestConfiguration {
 
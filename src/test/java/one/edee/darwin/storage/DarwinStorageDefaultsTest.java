@@ -0,0 +1,164 @@
+package one.edee.darwin.storage;
+
+import lombok.NonNull;
+import one.edee.darwin.model.Patch;
+import one.edee.darwin.model.PatchLedger;
+import one.edee.darwin.model.Platform;
+import one.edee.darwin.model.SqlCommand;
+import one.edee.darwin.model.SqlCommandLedger;
+import one.edee.darwin.model.version.VersionDescriptor;
+import one.edee.darwin.resources.ResourceAccessor;
+import one.edee.darwin.storage.DarwinStorage.SqlScriptStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that {@link DarwinStorage} implementations written before the bulk methods were introduced keep working
+ * with their default implementations.
+ */
+class DarwinStorageDefaultsTest {
+	private final LegacyDarwinStorage storage = new LegacyDarwinStorage();
+
+	@Test
+	void shouldLookUpPatchesOneByOneInDefaultPatchLedger() {
+		storage.patches.put("mysql/patch_1.1.sql", new Patch(1, "patch_1.1.sql", "legacy", LocalDateTime.now(), Platform.MYSQL, LocalDateTime.now()));
+		storage.patches.put("mysql/patch_1.2.sql", new Patch(2, "patch_1.2.sql", "legacy", LocalDateTime.now(), Platform.MYSQL));
+
+		final PatchLedger ledger = storage.getPatchLedger("legacy", Platform.MYSQL);
+
+		assertFalse(ledger.isEmpty());
+		assertTrue(ledger.isFinished("patch_1.1.sql"));
+		assertTrue(ledger.isRecorded("patch_1.2.sql"));
+		assertFalse(ledger.isFinished("patch_1.2.sql"));
+		assertEquals(Integer.valueOf(2), ledger.getPatch("patch_1.2.sql").getPatchId());
+		assertFalse(ledger.isRecorded("patch_1.3.sql"));
+		assertNull(ledger.getPatch("patch_1.3.sql"));
+
+		ledger.register(new Patch(3, "patch_1.3.sql", "legacy", LocalDateTime.now(), Platform.MYSQL, LocalDateTime.now()));
+		assertTrue(ledger.isFinished("patch_1.3.sql"));
+	}
+
+	@Test
+	void shouldReturnEmptyDefaultPatchLedgerForUnknownComponent() {
+		assertTrue(storage.getPatchLedger("legacy", Platform.MYSQL).isEmpty());
+	}
+
+	@Test
+	void shouldLookUpStatementsOneByOneWithDefaultSqlCommandLedger() {
+		final SqlCommandLedger ledger = storage.getSqlCommandLedger(1);
+
+		assertEquals(1, ledger.getPatchId());
+		assertFalse(ledger.isEmpty());
+		assertTrue(ledger.isUnhashedStatementPresent());
+	}
+
+	@Test
+	void shouldResumePatchOfLegacyStorageByStatementLookups() {
+		storage.statements.put("INSERT INTO A VALUES (1)#1", SqlScriptStatus.EXECUTED_FINISHED);
+		storage.statements.put("INSERT INTO A VALUES (2)#1", SqlScriptStatus.EXECUTED_FAILED);
+		final Patch patch = new Patch(1, "patch_1.1.sql", "legacy", LocalDateTime.now(), Platform.MYSQL);
+		final SqlCommandLedger ledger = storage.getSqlCommandLedger(1);
+
+		assertEquals(
+				SqlScriptStatus.EXECUTED_FINISHED,
+				DefaultDatabaseStorageUpdater.getExecutionStatus(patch, ledger, "INSERT INTO A VALUES (1)", "hash", 1, storage)
+		);
+		assertEquals(
+				SqlScriptStatus.EXECUTED_FAILED,
+				DefaultDatabaseStorageUpdater.getExecutionStatus(patch, ledger, "INSERT INTO A VALUES (2)", "hash", 1, storage)
+		);
+		assertEquals(
+				SqlScriptStatus.NOT_EXECUTED,
+				DefaultDatabaseStorageUpdater.getExecutionStatus(patch, ledger, "INSERT INTO A VALUES (1)", "hash", 2, storage)
+		);
+	}
+
+	@Test
+	void shouldNotStoreFingerprintsByDefault() {
+		storage.updateFingerprintForComponent("legacy", "abc");
+		assertNull(storage.getFingerprintForComponent("legacy"));
+	}
+
+	/**
+	 * Storage implementing only the abstract methods of the interface.
+	 */
+	private static class LegacyDarwinStorage implements DarwinStorage {
+		private final Map<String, Patch> patches = new HashMap<>();
+		private final Map<String, SqlScriptStatus> statements = new HashMap<>();
+
+		@Override
+		public void setResourceAccessor(@NonNull ResourceAccessor resourceAccessor) {
+		}
+
+		@Override
+		public VersionDescriptor getVersionDescriptorForComponent(@NonNull String componentName) {
+			return null;
+		}
+
+		@Override
+		public void updateVersionDescriptorForComponent(@NonNull String componentName, @NonNull String version) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Patch insertPatchToDatabase(@NonNull String patchName, @NonNull String componentName, @NonNull LocalDateTime detectedOn, @NonNull Platform platform) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void insertSqlScriptToDB(@NonNull Patch patch, @NonNull SqlCommand sqlCommand) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void updateSqlScriptInDB(@NonNull Patch patch, @NonNull SqlCommand sqlCommand) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void markPatchAsFinished(@NonNull Patch patch) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Patch getPatchByResourcePath(@NonNull String resourcePath, @NonNull String componentName) {
+			return patches.get(resourcePath);
+		}
+
+		@Override
+		public boolean isPatchFinishedInDb(@NonNull Patch patch) {
+			final Patch recordedPatch = patches.get(patch.getPlatform().getFolderName() + "/" + patch.getPatchName());
+			return recordedPatch != null && recordedPatch.getFinishedOn() != null;
+		}
+
+		@Override
+		public boolean isPatchRecordedByResourcePath(@NonNull String resourcePath, @NonNull String componentName) {
+			return patches.containsKey(resourcePath);
+		}
+
+		@Override
+		public boolean isAnyPatchRecordedFor(@NonNull String componentName) {
+			return !patches.isEmpty();
+		}
+
+		@Override
+		public void insertComponentToDatabase(@NonNull String componentName) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public SqlScriptStatus wasSqlCommandAlreadyExecuted(int patchId, @NonNull String script, int occurrence) {
+			return statements.getOrDefault(script + "#" + occurrence, SqlScriptStatus.NOT_EXECUTED);
+		}
+
+	}
+
+}
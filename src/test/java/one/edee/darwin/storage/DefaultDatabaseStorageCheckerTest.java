@@ -26,6 +26,8 @@ import java.nio.charset.StandardCharsets;
 
 import static one.edee.darwin.model.Platform.getPlatformFromJdbcUrl;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ContextConfiguration(
         classes = {
@@ -69,6 +71,44 @@ public abstract class DefaultDatabaseStorageCheckerTest extends AbstractDarwinTe
         }
     }
 
+    @Test
+    @DirtiesContext
+    public void testGuessVersionByBinarySearch() {
+        ((ResourceAccessorForTest) tested.getResourceAccessor()).setResourcePathForPatch("/META-INF/darwin/sql-test/upgrade/");
+        tested.setBinarySearchGuess(true);
+        try {
+            assertEquals(new VersionDescriptor("1.1"), tested.guessVersion("darwin", darwinStorage));
+            assertTrue(tested.guessPatchAlreadyApplied("darwin", darwinStorage, new VersionDescriptor("1.1")));
+        } finally {
+            tested.setBinarySearchGuess(false);
+            tested.clearGuessResults();
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    public void testGuessVersionBySelectWithBinarySearch() throws Exception {
+        final Platform platform = getPlatformFromJdbcUrl(getJdbcTemplate().getDataSource());
+        try (final InputStream is = new ClassPathResource("META-INF/darwin/sql-test/guess/" + platform.getFolderName() + "/init.sql").getInputStream()) {
+            String sql = toString(is, StandardCharsets.UTF_8);
+            getJdbcTemplate().update(sql);
+            DefaultDatabaseStorageChecker storageChecker = new DefaultDatabaseStorageChecker(
+                    new ResourcePatchMediator(
+                            new DefaultResourceMatcher()
+                    )
+            );
+            storageChecker.setResourceAccessor(new DefaultResourceAccessor(darwin.getApplicationContext(), "utf-8", "/META-INF/darwin/sql-test/guess/"));
+            storageChecker.setResourceLoader(darwin.getApplicationContext());
+            storageChecker.setResourceMatcher(new DefaultResourceMatcher());
+            storageChecker.setDataSource(dataSource);
+            storageChecker.setTransactionManager(transactionManager);
+            storageChecker.setBinarySearchGuess(true);
+            assertEquals(new VersionDescriptor("1.2"), storageChecker.guessVersion("darwin", darwinStorage));
+            assertTrue(storageChecker.guessPatchAlreadyApplied("darwin", darwinStorage, new VersionDescriptor("1.2")));
+            assertFalse(storageChecker.guessPatchAlreadyApplied("darwin", darwinStorage, new VersionDescriptor("1.3")));
+        }
+    }
+
     @AfterEach
     public void tearDown() {
 		DarwinTestHelper.deleteAllInfrastructuralPages(darwin);
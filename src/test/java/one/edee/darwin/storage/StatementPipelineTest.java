@@ -0,0 +1,60 @@
+package one.edee.darwin.storage;
+
+import one.edee.darwin.model.Platform;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link StatementPipeline}.
+ */
+class StatementPipelineTest {
+
+	@Test
+	void shouldComposeStatementsSeparatedBySemicolon() {
+		final StatementPipeline pipeline = StatementPipeline.forPlatform(Platform.MYSQL);
+		assertEquals("CREATE TABLE A (id INT);\nDROP TABLE B", pipeline.compose(Arrays.asList("CREATE TABLE A (id INT)", "DROP TABLE B")));
+		assertEquals(2, pipeline.getFailedIndex(new SQLException("failed"), 2));
+		assertEquals(-1, pipeline.getFailedIndex(new SQLException("failed"), 0));
+		assertTrue(pipeline.recognizesFailedStatement());
+	}
+
+	@Test
+	void shouldNotRecognizeFailingStatementOfH2() {
+		final StatementPipeline pipeline = StatementPipeline.forPlatform(Platform.H2);
+		assertEquals("CREATE TABLE A (id INT);\nDROP TABLE B", pipeline.compose(Arrays.asList("CREATE TABLE A (id INT)", "DROP TABLE B")));
+		assertFalse(pipeline.recognizesFailedStatement());
+	}
+
+	@Test
+	void shouldRecognizeFailingStatementOfAnonymousBlock() {
+		final StatementPipeline pipeline = StatementPipeline.forPlatform(Platform.ORACLE);
+		final String block = pipeline.compose(Arrays.asList("CREATE TABLE A (id INT)", "INSERT INTO A VALUES ('x')"));
+		assertTrue(block.contains("EXECUTE IMMEDIATE 'INSERT INTO A VALUES (''x'')';"));
+		assertEquals(
+				1,
+				pipeline.getFailedIndex(
+						new SQLException("ORA-20999: Darwin pipeline failed after statements: 1\nORA-00942: table or view does not exist"),
+						0
+				)
+		);
+		assertEquals(-1, pipeline.getFailedIndex(new SQLException("ORA-00942: table or view does not exist"), 0));
+		assertTrue(pipeline.recognizesFailedStatement());
+	}
+
+	@Test
+	void shouldRefuseProceduralStatements() {
+		final StatementPipeline pipeline = StatementPipeline.forPlatform(Platform.H2);
+		assertTrue(pipeline.accepts("ALTER TABLE A ADD note VARCHAR(64)"));
+		assertFalse(pipeline.accepts("BEGIN\n  NULL;\nEND"));
+		assertFalse(pipeline.accepts("CREATE TRIGGER T BEFORE INSERT ON A FOR EACH ROW SET NEW.id = 1; END"));
+		assertNull(StatementPipeline.forPlatform(Platform.MSSQL));
+	}
+
+}
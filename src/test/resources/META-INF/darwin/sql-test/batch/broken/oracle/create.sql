@@ -0,0 +1,6 @@
+CREATE TABLE BATCH_TEST
+(
+    id INT NOT NULL,
+    label VARCHAR2(16) NULL,
+    CONSTRAINT CNPK_BATCH_TEST PRIMARY KEY (id)
+);
\ No newline at end of file
@@ -0,0 +1,5 @@
+INSERT INTO BATCH_TEST (id, label) VALUES (1, 'a');
+INSERT INTO BATCH_TEST (id, label) VALUES (2, 'b');
+ALTER TABLE BATCH_TEST ADD note VARCHAR(64) NULL;
+UPDATE BATCH_TEST SET note = label;
+INSERT INTO BATCH_TEST (id, label) VALUES (3, 'c');
\ No newline at end of file
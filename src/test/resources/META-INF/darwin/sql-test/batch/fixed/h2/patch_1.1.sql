@@ -0,0 +1,4 @@
+ALTER TABLE BATCH_TEST ADD note VARCHAR(64) NULL;
+INSERT INTO BATCH_TEST (id, label) VALUES (1, 'a');
+INSERT INTO BATCH_TEST (id, label) VALUES (2, 'b');
+INSERT INTO BATCH_TEST (id, label) VALUES (3, 'c');
\ No newline at end of file
@@ -0,0 +1,5 @@
+INSERT INTO CHECKPOINT_TEST (id) VALUES (1);
+INSERT INTO CHECKPOINT_TEST (id) VALUES (2);
+INSERT INTO CHECKPOINT_TEST (id) VALUES (3);
+INSERT INTO CHECKPOINT_TEST (id) VALUES (4);
+INSERT INTO CHECKPOINT_TEST (id) VALUES (5);
\ No newline at end of file
@@ -0,0 +1,5 @@
+CREATE TABLE CHECKPOINT_TEST
+(
+    id INT NOT NULL,
+    CONSTRAINT CNPK_CHECKPOINT_TEST PRIMARY KEY (id)
+);
\ No newline at end of file
@@ -0,0 +1,8 @@
+INSERT INTO CHECKPOINT_TEST (id) VALUES (1);
+INSERT INTO CHECKPOINT_TEST (id) VALUES (2);
+CREATE TABLE CHECKPOINT_DDL
+(
+    id INT NOT NULL
+);
+INSERT INTO CHECKPOINT_TEST (id) VALUES (3);
+INSERT INTO CHECKPOINT_TEST (id) VALUES (4);
\ No newline at end of file
@@ -0,0 +1,6 @@
+CREATE TABLE ORCHESTRATOR_BROKEN
+(
+    id INT NOT NULL,
+    CONSTRAINT CNPK_ORCHESTRATOR_BROKEN PRIMARY KEY (id),
+    CONSTRAINT CNFK_ORCHESTRATOR_BROKEN FOREIGN KEY (id) REFERENCES ORCHESTRATOR_NON_EXISTING (id)
+);
\ No newline at end of file
@@ -0,0 +1 @@
+ALTER TABLE ORCHESTRATOR_FIRST ADD note VARCHAR(64) NULL;
\ No newline at end of file
@@ -0,0 +1,5 @@
+CREATE TABLE ORCHESTRATOR_FIRST
+(
+    id INT NOT NULL,
+    CONSTRAINT CNPK_ORCHESTRATOR_FIRST PRIMARY KEY (id)
+);
\ No newline at end of file
@@ -0,0 +1,7 @@
+CREATE TABLE ORCHESTRATOR_SECOND
+(
+    id INT NOT NULL,
+    firstId INT NOT NULL,
+    CONSTRAINT CNPK_ORCHESTRATOR_SECOND PRIMARY KEY (id),
+    CONSTRAINT CNFK_ORCHESTRATOR_SECOND FOREIGN KEY (firstId) REFERENCES ORCHESTRATOR_FIRST (id)
+);
\ No newline at end of file
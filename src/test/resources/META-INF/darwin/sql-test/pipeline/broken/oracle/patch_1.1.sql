@@ -0,0 +1,4 @@
+ALTER TABLE PIPELINE_TEST ADD note VARCHAR2(64) NULL;
+INSERT INTO PIPELINE_TEST (id, label) VALUES (1, 'a');
+INSERT INTO PIPELINE_TEST (id, label) VALUES (2, 'b');
+INSERT INTO PIPELINE_TEST (id, label) VALUES (1, 'c');
\ No newline at end of file
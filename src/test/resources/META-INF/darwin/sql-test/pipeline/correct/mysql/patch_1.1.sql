@@ -0,0 +1,9 @@
+INSERT INTO PIPELINE_TEST (id, label) VALUES (1, 'a');
+INSERT INTO PIPELINE_TEST (id, label) VALUES (2, 'b');
+ALTER TABLE PIPELINE_TEST ADD note VARCHAR(64) NULL;
+CREATE TABLE PIPELINE_SECOND
+(
+    id INT NOT NULL
+);
+UPDATE PIPELINE_TEST SET note = label;
+INSERT INTO PIPELINE_TEST (id, label) VALUES (3, 'c');
\ No newline at end of file
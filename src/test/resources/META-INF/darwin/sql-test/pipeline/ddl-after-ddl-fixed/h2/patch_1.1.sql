@@ -0,0 +1,10 @@
+INSERT INTO PIPELINE_TEST (id, label) VALUES (1, 'a');
+CREATE TABLE PIPELINE_SECOND
+(
+    id INT NOT NULL
+);
+CREATE TABLE PIPELINE_THIRD
+(
+    id INT NOT NULL
+);
+INSERT INTO PIPELINE_TEST (id, label) VALUES (2, 'b');
\ No newline at end of file
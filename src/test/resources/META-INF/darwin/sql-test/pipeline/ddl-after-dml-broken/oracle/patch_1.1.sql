@@ -0,0 +1,11 @@
+INSERT INTO PIPELINE_TEST (id, label) VALUES (1, 'a');
+CREATE TABLE PIPELINE_SECOND
+(
+    id INT NOT NULL
+);
+INSERT INTO PIPELINE_TEST (id, label) VALUES (2, 'b');
+CREATE TABLE PIPELINE_TEST
+(
+    id INT NOT NULL
+);
+INSERT INTO PIPELINE_TEST (id, label) VALUES (3, 'c');
\ No newline at end of file